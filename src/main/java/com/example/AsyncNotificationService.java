@@ -0,0 +1,259 @@
+package com.example;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class AsyncNotificationService implements NotificationService, AutoCloseable {
+
+    public enum OverflowPolicy {
+        BLOCK,
+        DROP_NEWEST,
+        DROP_OLDEST,
+        CALLER_RUNS
+    }
+
+    private record Notification(Booking booking, boolean cancellation) {
+    }
+
+    private final NotificationService delegate;
+    private final BlockingQueue<Notification> queue;
+    // Platserna räknar både köade notifieringar och sådana som väntar på omförsök, så att ett nere
+    // mottagarsystem ger mottryck i stället för obegränsat många schemalagda omförsök
+    private final Semaphore slots;
+    private final int capacity;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final OverflowPolicy overflowPolicy;
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService retries = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("notification-retries").daemon().factory());
+    // Köandet delar låset och stängningen tar det ensam, så ingen notifiering hinner köas efter stängning
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private final Thread dispatcher;
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean running = true;
+
+    public AsyncNotificationService(NotificationService delegate) {
+        this(delegate, 10_000, 100, 3, Duration.ofMillis(200), OverflowPolicy.DROP_OLDEST);
+    }
+
+    public AsyncNotificationService(NotificationService delegate, int capacity, int batchSize, int maxAttempts,
+                                    Duration initialBackoff, OverflowPolicy overflowPolicy) {
+        if (capacity < 1 || batchSize < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("Kapacitet, batchstorlek och antal försök måste vara minst 1");
+        }
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.slots = new Semaphore(capacity);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.overflowPolicy = overflowPolicy;
+        this.dispatcher = Thread.ofVirtual().name("notification-dispatcher").start(this::dispatch);
+    }
+
+    @Override
+    public void sendBookingConfirmation(Booking booking) throws NotificationException {
+        enqueue(new Notification(booking, false));
+    }
+
+    @Override
+    public void sendCancellationConfirmation(Booking booking) throws NotificationException {
+        enqueue(new Notification(booking, true));
+    }
+
+    private void enqueue(Notification notification) throws NotificationException {
+        closeLock.readLock().lock();
+        try {
+            if (!running) {
+                throw new NotificationException("Notifieringstjänsten är stängd");
+            }
+            if (slots.tryAcquire()) {
+                queue.add(notification);
+            } else {
+                handleOverflow(notification);
+            }
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    private void handleOverflow(Notification notification) throws NotificationException {
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                try {
+                    slots.acquire();
+                    queue.add(notification);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new NotificationException("Avbruten i väntan på plats i notifieringskön");
+                }
+            }
+            case DROP_NEWEST -> dropped.increment();
+            case DROP_OLDEST -> {
+                // Den äldsta köade notifieringens plats går över till den nya. Hålls alla platser av omförsök
+                // finns inget köat att tränga undan, och då är det den nya som får ge vika
+                if (queue.poll() != null) {
+                    dropped.increment();
+                    queue.add(notification);
+                } else if (slots.tryAcquire()) {
+                    queue.add(notification);
+                } else {
+                    dropped.increment();
+                }
+            }
+            case CALLER_RUNS -> {
+                send(notification);
+                delivered.increment();
+            }
+        }
+    }
+
+    private void dispatch() {
+        List<Notification> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Notification first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                slots.release(batch.size());
+                List<Notification> pending = sendAll(batch);
+                if (pending.isEmpty()) {
+                    continue;
+                }
+                if (maxAttempts == 1) {
+                    failed.add(pending.size());
+                    continue;
+                }
+                // Är kön full av väntande omförsök stannar utskicket här, och då tar överfyllnadspolicyn över
+                slots.acquire(pending.size());
+                retry(pending, 1, initialBackoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Utskickstråden får inte dö, då skulle kön aldrig tömmas igen
+                failed.add(batch.size());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Notifieringarna håller sina platser tills de levererats eller getts upp
+    private void retry(List<Notification> pending, int attempt, Duration backoff) {
+        if (attempt >= maxAttempts) {
+            giveUp(pending);
+            return;
+        }
+        // Omförsöket schemaläggs i stället för att sova, så att utskicket fortsätter med nästa batch under tiden
+        try {
+            retries.schedule(() -> {
+                try {
+                    List<Notification> stillPending = sendAll(pending);
+                    slots.release(pending.size() - stillPending.size());
+                    if (!stillPending.isEmpty()) {
+                        retry(stillPending, attempt + 1, backoff.multipliedBy(2));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    giveUp(pending);
+                }
+            }, backoff.toNanos(), TimeUnit.NANOSECONDS);
+            retried.add(pending.size());
+        } catch (RejectedExecutionException e) {
+            giveUp(pending);
+        }
+    }
+
+    private void giveUp(List<Notification> notifications) {
+        failed.add(notifications.size());
+        slots.release(notifications.size());
+    }
+
+    private List<Notification> sendAll(List<Notification> batch) throws InterruptedException {
+        List<Future<?>> results = new ArrayList<>(batch.size());
+        for (Notification notification : batch) {
+            results.add(senders.submit(() -> {
+                send(notification);
+                return null;
+            }));
+        }
+        List<Notification> failures = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                results.get(i).get();
+                delivered.increment();
+            } catch (ExecutionException e) {
+                failures.add(batch.get(i));
+            }
+        }
+        return failures;
+    }
+
+    private void send(Notification notification) throws NotificationException {
+        if (notification.cancellation()) {
+            delegate.sendCancellationConfirmation(notification.booking());
+        } else {
+            delegate.sendBookingConfirmation(notification.booking());
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public long getRetryCount() {
+        return retried.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        closeLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        dispatcher.join();
+        // När kön är tömd hålls de återstående platserna av omförsök, så alla platser lediga betyder att de är klara
+        slots.acquire(capacity);
+        retries.shutdown();
+        senders.shutdown();
+        senders.awaitTermination(1, TimeUnit.MINUTES);
+    }
+}
@@ -0,0 +1,172 @@
+package com.example;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class AvailabilityIndex {
+    private final long slotSeconds;
+    private final List<Room> rooms = new ArrayList<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    // Tidslucka -> rum (ordningstal) som har någon bokning som berör luckan
+    private final Map<Long, BitSet> occupiedRoomsBySlot = new HashMap<>();
+    // Upprepningar läggs inte ut i luckor, rummen kontrolleras i stället exakt för det sökta fönstret
+    private final BitSet roomsWithRecurring = new BitSet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public AvailabilityIndex(Duration slotLength) {
+        if (slotLength.isNegative() || slotLength.isZero() || slotLength.getNano() != 0) {
+            throw new IllegalArgumentException("Tidsluckan måste vara ett positivt antal hela sekunder");
+        }
+        this.slotSeconds = slotLength.getSeconds();
+    }
+
+    public void addRooms(Collection<Room> rooms) {
+        rooms.forEach(this::addRoom);
+    }
+
+    // Lägger bara till rum som indexet inte känner till, kända rum hålls redan aktuella av händelserna
+    public void addRoomsIfAbsent(Collection<Room> rooms) {
+        lock.writeLock().lock();
+        try {
+            for (Room room : rooms) {
+                if (!ordinals.containsKey(room.getId())) {
+                    addRoom(room);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int getRoomCount() {
+        lock.readLock().lock();
+        try {
+            return rooms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void addRoom(Room room) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinalOf(room);
+            for (Booking booking : room.getBookings()) {
+                markOccupied(ordinal, booking.getStartTime(), booking.getEndTime());
+            }
+            roomsWithRecurring.set(ordinal, !room.getRecurringBookings().isEmpty());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void onRecurringBookingsChanged(Room room) {
+        lock.writeLock().lock();
+        try {
+            roomsWithRecurring.set(ordinalOf(room), !room.getRecurringBookings().isEmpty());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void onBooked(Room room, Booking booking) {
+        lock.writeLock().lock();
+        try {
+            markOccupied(ordinalOf(room), booking.getStartTime(), booking.getEndTime());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void onCancelled(Room room, Booking booking) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinalOf(room);
+            long lastSlot = slotOf(booking.getEndTime());
+            for (long slot = slotOf(booking.getStartTime()); slot <= lastSlot; slot++) {
+                BitSet occupied = occupiedRoomsBySlot.get(slot);
+                // Luckan kan fortfarande beröras av en annan bokning i samma rum. Upprepningar markerar aldrig
+                // luckor, de kontrolleras exakt vid sökningen, så bara vanliga bokningar räknas här
+                if (occupied != null && !room.hasSingleBookingBetween(slotStart(slot), slotStart(slot + 1).minusNanos(1))) {
+                    occupied.clear(ordinal);
+                    if (occupied.isEmpty()) {
+                        occupiedRoomsBySlot.remove(slot);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Room> findAvailable(LocalDateTime startTime, LocalDateTime endTime) {
+        lock.readLock().lock();
+        try {
+            long firstSlot = slotOf(startTime);
+            long lastSlot = slotOf(endTime);
+            BitSet busy = new BitSet(rooms.size());
+            BitSet partiallyCovered = new BitSet(rooms.size());
+            for (long slot = firstSlot; slot <= lastSlot; slot++) {
+                BitSet occupied = occupiedRoomsBySlot.get(slot);
+                if (occupied == null) {
+                    continue;
+                }
+                // Luckor helt inom intervallet avgör direkt, kantluckorna kräver exakt kontroll
+                if (slot > firstSlot && slot < lastSlot) {
+                    busy.or(occupied);
+                } else {
+                    partiallyCovered.or(occupied);
+                }
+            }
+            partiallyCovered.or(roomsWithRecurring);
+            partiallyCovered.andNot(busy);
+
+            List<Room> available = new ArrayList<>();
+            for (int ordinal = busy.nextClearBit(0); ordinal < rooms.size(); ordinal = busy.nextClearBit(ordinal + 1)) {
+                Room room = rooms.get(ordinal);
+                if (!partiallyCovered.get(ordinal) || room.isAvailable(startTime, endTime)) {
+                    available.add(room);
+                }
+            }
+            return available;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int ordinalOf(Room room) {
+        Integer ordinal = ordinals.get(room.getId());
+        if (ordinal == null) {
+            ordinal = rooms.size();
+            ordinals.put(room.getId(), ordinal);
+            rooms.add(room);
+        } else {
+            rooms.set(ordinal, room);
+        }
+        return ordinal;
+    }
+
+    private void markOccupied(int ordinal, LocalDateTime startTime, LocalDateTime endTime) {
+        long lastSlot = slotOf(endTime);
+        for (long slot = slotOf(startTime); slot <= lastSlot; slot++) {
+            occupiedRoomsBySlot.computeIfAbsent(slot, key -> new BitSet()).set(ordinal);
+        }
+    }
+
+    private long slotOf(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), slotSeconds);
+    }
+
+    private LocalDateTime slotStart(long slot) {
+        return LocalDateTime.ofEpochSecond(slot * slotSeconds, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example;
+
+import java.time.LocalDateTime;
+
+public record AvailableSlot(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+
+    public BookingRequest toBookingRequest() {
+        return new BookingRequest(roomId, startTime, endTime);
+    }
+}
@@ -1,8 +1,12 @@
 package com.example;
 
 import java.time.LocalDateTime;
+import java.util.Comparator;
 
 public class Booking {
+    public static final Comparator<Booking> BY_START_TIME =
+            Comparator.comparing(Booking::getStartTime).thenComparing(Booking::getId);
+
     private final String id;
     private final String roomId;
     private final LocalDateTime startTime;
@@ -0,0 +1,207 @@
+package com.example;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+public class BookingArchive implements AutoCloseable {
+
+    private record Block(LocalDateTime earliestStart, LocalDateTime latestEnd, byte[] compressed) {
+
+        boolean overlaps(LocalDateTime from, LocalDateTime to) {
+            return !latestEnd.isBefore(from) && !earliestStart.isAfter(to);
+        }
+    }
+
+    private final Map<String, List<Block>> blocksByRoom = new ConcurrentHashMap<>();
+    private final AtomicLong archivedCount = new AtomicLong();
+    private final AtomicLong compressedBytes = new AtomicLong();
+    // Null för ett arkiv som bara finns i minnet
+    private final FileChannel file;
+
+    public BookingArchive() {
+        this.file = null;
+    }
+
+    // Blocken läggs till i filen när de arkiveras och läses in igen vid start
+    public BookingArchive(Path path) throws IOException {
+        long validBytes = 0;
+        if (Files.exists(path)) {
+            byte[] content = Files.readAllBytes(path);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(content));
+            try {
+                while (validBytes < content.length) {
+                    String roomId = in.readUTF();
+                    LocalDateTime earliestStart = readTime(in);
+                    LocalDateTime latestEnd = readTime(in);
+                    byte[] compressed = new byte[in.readInt()];
+                    in.readFully(compressed);
+                    add(roomId, new Block(earliestStart, latestEnd, compressed), count(compressed));
+                    validBytes = content.length - in.available();
+                }
+            } catch (EOFException e) {
+                // Ett block som inte hann skrivas klart före en krasch kastas
+            }
+        }
+        this.file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        file.truncate(validBytes);
+        file.position(validBytes);
+    }
+
+    public boolean isDurable() {
+        return file != null;
+    }
+
+    public void archive(String roomId, Collection<Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime earliestStart = null;
+        LocalDateTime latestEnd = null;
+        for (Booking booking : bookings) {
+            if (earliestStart == null || booking.getStartTime().isBefore(earliestStart)) {
+                earliestStart = booking.getStartTime();
+            }
+            if (latestEnd == null || booking.getEndTime().isAfter(latestEnd)) {
+                latestEnd = booking.getEndTime();
+            }
+        }
+
+        Block block = new Block(earliestStart, latestEnd, compress(bookings));
+        if (file != null) {
+            write(roomId, block);
+        }
+        add(roomId, block, bookings.size());
+    }
+
+    private void add(String roomId, Block block, int bookingCount) {
+        blocksByRoom.computeIfAbsent(roomId, id -> new CopyOnWriteArrayList<>()).add(block);
+        archivedCount.addAndGet(bookingCount);
+        compressedBytes.addAndGet(block.compressed().length);
+    }
+
+    private void write(String roomId, Block block) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(block.compressed().length + 64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(roomId);
+            writeTime(out, block.earliestStart());
+            writeTime(out, block.latestEnd());
+            out.writeInt(block.compressed().length);
+            out.write(block.compressed());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        synchronized (file) {
+            try {
+                while (buffer.hasRemaining()) {
+                    file.write(buffer);
+                }
+                file.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Kunde inte skriva till bokningsarkivet", e);
+            }
+        }
+    }
+
+    public List<Booking> getBookings(String roomId, LocalDateTime from, LocalDateTime to) {
+        List<Booking> bookings = new ArrayList<>();
+        // Bara block vars tidsspann överlappar fönstret behöver packas upp
+        for (Block block : blocksByRoom.getOrDefault(roomId, List.of())) {
+            if (block.overlaps(from, to)) {
+                for (Booking booking : decompress(roomId, block)) {
+                    if (booking.overlaps(from, to)) {
+                        bookings.add(booking);
+                    }
+                }
+            }
+        }
+        bookings.sort(Booking.BY_START_TIME);
+        return bookings;
+    }
+
+    public long getArchivedCount() {
+        return archivedCount.get();
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes.get();
+    }
+
+    private static byte[] compress(Collection<Booking> bookings) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            out.writeInt(bookings.size());
+            for (Booking booking : bookings) {
+                out.writeUTF(booking.getId());
+                writeTime(out, booking.getStartTime());
+                writeTime(out, booking.getEndTime());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static int count(byte[] compressed) throws IOException {
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed)))) {
+            return in.readInt();
+        }
+    }
+
+    private static List<Booking> decompress(String roomId, Block block) {
+        try (DataInputStream in = new DataInputStream(
+                new InflaterInputStream(new ByteArrayInputStream(block.compressed())))) {
+            int count = in.readInt();
+            List<Booking> bookings = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                bookings.add(new Booking(in.readUTF(), roomId, readTime(in), readTime(in)));
+            }
+            return bookings;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Arkivblocket kunde inte läsas", e);
+        }
+    }
+
+    // Sekunder och nanosekunder var för sig, så att bokningar utanför nanosekundsepokens år också kan arkiveras
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time.getNano());
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class BookingArchiver implements AutoCloseable {
+
+    private final BookingSystem bookingSystem;
+    private final TimeProvider timeProvider;
+    private final BookingArchive archive;
+    private final Duration retention;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("booking-archiver").daemon().factory());
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder failedRuns = new LongAdder();
+    private volatile long liveCount;
+
+    public BookingArchiver(BookingSystem bookingSystem, TimeProvider timeProvider, BookingArchive archive,
+                           Duration retention) {
+        if (retention == null || retention.isNegative()) {
+            throw new IllegalArgumentException("Lagringstiden kan inte vara negativ");
+        }
+        this.bookingSystem = bookingSystem;
+        this.timeProvider = timeProvider;
+        this.archive = archive;
+        this.retention = retention;
+    }
+
+    public void start(Duration interval) {
+        if (interval == null || interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Intervallet måste vara positivt");
+        }
+        long nanos = interval.toNanos();
+        scheduler.scheduleWithFixedDelay(this::runScheduled, nanos, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void runScheduled() {
+        try {
+            runOnce();
+        } catch (RuntimeException e) {
+            // Ett undantag skulle stoppa schemat, nästa körning försöker igen
+            failedRuns.increment();
+        }
+    }
+
+    public synchronized int runOnce() {
+        LocalDateTime cutoff = timeProvider.getCurrentTime().minus(retention);
+        int archived = bookingSystem.archiveBookingsEndedBefore(cutoff, archive);
+        liveCount = bookingSystem.getBookingCount();
+        runs.increment();
+        return archived;
+    }
+
+    public long getLiveCount() {
+        return liveCount;
+    }
+
+    public long getArchivedCount() {
+        return archive.getArchivedCount();
+    }
+
+    // Vad arkivet faktiskt tar upp; hur mycket minne som frigjordes får mätas på heapen, t.ex. med BookingFootprintBenchmark
+    public long getCompressedBytes() {
+        return archive.getCompressedBytes();
+    }
+
+    public long getRunCount() {
+        return runs.sum();
+    }
+
+    public long getFailedRunCount() {
+        return failedRuns.sum();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(1, TimeUnit.MINUTES);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example;
+
+public sealed interface BookingEvent
+        permits BookingEvent.BookingCreated, BookingEvent.BookingCancelled, BookingEvent.RecurringBookingCreated {
+
+    long offset();
+
+    String roomId();
+
+    record BookingCreated(long offset, Booking booking) implements BookingEvent {
+        @Override
+        public String roomId() {
+            return booking.getRoomId();
+        }
+    }
+
+    record BookingCancelled(long offset, Booking booking) implements BookingEvent {
+        @Override
+        public String roomId() {
+            return booking.getRoomId();
+        }
+    }
+
+    record RecurringBookingCreated(long offset, RecurringBooking recurringBooking) implements BookingEvent {
+        @Override
+        public String roomId() {
+            return recurringBooking.getRoomId();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+public class BookingEventFeed {
+
+    public final class Subscription implements AutoCloseable {
+        private volatile long position;
+        private volatile boolean disconnected;
+
+        private Subscription(long position) {
+            this.position = position;
+        }
+
+        public BookingEvent poll() {
+            if (disconnected) {
+                throw new IllegalStateException("Prenumerationen har hamnat för långt efter");
+            }
+            long offset = position;
+            int index = indexOf(offset);
+            long publishedOffset = published.get(index);
+            if (publishedOffset > offset) {
+                throw new IllegalStateException("Prenumerationen har hamnat för långt efter");
+            }
+            if (publishedOffset != offset) {
+                return null;
+            }
+            BookingEvent event = slots.get(index);
+            // Om platsen skrevs över medan vi läste har prenumerationen tappat händelser. Utgivaren skriver
+            // platsen före published, så en nyare händelse kan synas innan published har hunnit ändras
+            if (event.offset() != offset || published.get(index) != offset) {
+                throw new IllegalStateException("Prenumerationen har hamnat för långt efter");
+            }
+            position = offset + 1;
+            return event;
+        }
+
+        public BookingEvent poll(Duration timeout) throws InterruptedException {
+            long deadline = System.nanoTime() + timeout.toNanos();
+            BookingEvent event = poll();
+            while (event == null && System.nanoTime() < deadline) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                LockSupport.parkNanos(PARK_NANOS);
+                event = poll();
+            }
+            return event;
+        }
+
+        public long getPosition() {
+            return position;
+        }
+
+        @Override
+        public void close() {
+            subscriptions.remove(this);
+        }
+    }
+
+    private static final long PARK_NANOS = 50_000;
+    private static final Duration DEFAULT_MAX_PUBLISH_WAIT = Duration.ofMillis(100);
+
+    private final int mask;
+    private final long maxPublishWaitNanos;
+    private final LongAdder disconnected = new LongAdder();
+    private final AtomicReferenceArray<BookingEvent> slots;
+    private final AtomicLongArray published;
+    private final AtomicLong nextOffset = new AtomicLong();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    public BookingEventFeed(int capacity) {
+        this(capacity, DEFAULT_MAX_PUBLISH_WAIT);
+    }
+
+    public BookingEventFeed(int capacity, Duration maxPublishWait) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Kapaciteten måste vara en tvåpotens");
+        }
+        if (maxPublishWait == null || maxPublishWait.isNegative()) {
+            throw new IllegalArgumentException("Väntetiden kan inte vara negativ");
+        }
+        this.mask = capacity - 1;
+        this.maxPublishWaitNanos = maxPublishWait.toNanos();
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+    }
+
+    public Subscription subscribe() {
+        return subscribe(nextOffset.get());
+    }
+
+    public synchronized Subscription subscribe(long fromOffset) {
+        long next = nextOffset.get();
+        if (fromOffset < Math.max(0, next - capacity()) || fromOffset > next) {
+            throw new IllegalArgumentException("Offset finns inte längre i flödet: " + fromOffset);
+        }
+        Subscription subscription = new Subscription(fromOffset);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    // Anropas under rummets skrivlås, så väntan är begränsad: en prenumerant som inte hunnit läsa kopplas bort
+    BookingEvent publish(LongFunction<BookingEvent> eventAtOffset) {
+        long deadline = System.nanoTime() + maxPublishWaitNanos;
+        long offset;
+        do {
+            offset = nextOffset.get();
+            // Mottryck: vänta tills den långsammaste prenumeranten har läst platsen som ska skrivas över
+            while (offset - capacity() >= slowestPosition(offset)) {
+                if (System.nanoTime() - deadline >= 0) {
+                    disconnectLaggingSubscribers(offset - capacity());
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+                offset = nextOffset.get();
+            }
+        } while (!nextOffset.compareAndSet(offset, offset + 1));
+
+        BookingEvent event = eventAtOffset.apply(offset);
+        int index = indexOf(offset);
+        slots.set(index, event);
+        published.set(index, offset);
+        return event;
+    }
+
+    private void disconnectLaggingSubscribers(long overwrittenOffset) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.position <= overwrittenOffset && subscriptions.remove(subscription)) {
+                subscription.disconnected = true;
+                disconnected.increment();
+            }
+        }
+    }
+
+    private long slowestPosition(long fallback) {
+        long slowest = fallback;
+        for (Subscription subscription : subscriptions) {
+            slowest = Math.min(slowest, subscription.position);
+        }
+        return slowest;
+    }
+
+    public long getNextOffset() {
+        return nextOffset.get();
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    public long getDisconnectedCount() {
+        return disconnected.sum();
+    }
+
+    private int capacity() {
+        return mask + 1;
+    }
+
+    private int indexOf(long offset) {
+        return (int) (offset & mask);
+    }
+}
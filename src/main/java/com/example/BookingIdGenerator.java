@@ -0,0 +1,5 @@
+package com.example;
+
+public interface BookingIdGenerator {
+    String nextId();
+}
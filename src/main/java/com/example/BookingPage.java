@@ -0,0 +1,36 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+public record BookingPage(List<Booking> bookings, String nextCursor) {
+
+    private static final char SEPARATOR = '~';
+
+    public BookingPage {
+        bookings = List.copyOf(bookings);
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    // ISO-formen täcker hela LocalDateTime, så även indexerade bokningar utanför nanosekundsepokens år kan bläddras
+    static String cursorAfter(Booking booking) {
+        return booking.getStartTime().toString() + SEPARATOR + booking.getId();
+    }
+
+    static Booking decodeCursor(String cursor) {
+        int separator = cursor.indexOf(SEPARATOR);
+        if (separator < 1) {
+            throw new IllegalArgumentException("Ogiltig sidmarkör");
+        }
+        try {
+            LocalDateTime startTime = LocalDateTime.parse(cursor.substring(0, separator));
+            return new Booking(cursor.substring(separator + 1), "", startTime, startTime);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Ogiltig sidmarkör", e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example;
+
+public record BookingResult(BookingRequest request, Booking booking, String failureReason) {
+
+    public static BookingResult success(BookingRequest request, Booking booking) {
+        return new BookingResult(request, booking, null);
+    }
+
+    public static BookingResult failure(BookingRequest request, String failureReason) {
+        return new BookingResult(request, null, failureReason);
+    }
+
+    public boolean isSuccessful() {
+        return booking != null;
+    }
+}
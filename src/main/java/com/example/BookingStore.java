@@ -0,0 +1,25 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Iterator;
+
+interface BookingStore {
+    boolean add(Booking booking);
+
+    Booking remove(String bookingId);
+
+    Booking get(String bookingId);
+
+    boolean contains(String bookingId);
+
+    Booking findConflict(LocalDateTime startTime, LocalDateTime endTime);
+
+    Iterator<Booking> overlapping(LocalDateTime from, LocalDateTime to, Booking after);
+
+    Collection<Booking> all();
+
+    int size();
+
+    BookingStore copy();
+}
@@ -0,0 +1,287 @@
+package com.example;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+public class CachingRoomRepository implements RoomRepository {
+
+    private record Entry(Room snapshot, long loadedAt) {
+    }
+
+    // Nycklarna sprids över segment med var sitt lås, så att läsningar av olika rum inte köar på samma monitor.
+    // Varje segment slänger sitt äldst använda värde vid platsbrist
+    private static final class Segment<V> extends LinkedHashMap<String, V> {
+        private final int capacity;
+        private final LongAdder evictions;
+
+        Segment(int capacity, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+            if (size() > capacity) {
+                if (evictions != null) {
+                    evictions.increment();
+                }
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static final int MAX_SEGMENTS = 16;
+    // Små cachar får ett enda segment och därmed exakt LRU
+    private static final int MIN_SEGMENT_SIZE = 64;
+
+    private final RoomRepository delegate;
+    private final long timeToLiveNanos;
+    private final LongSupplier nanoTime;
+    private final List<Segment<Entry>> entries;
+    // Bokning -> rum, verifieras mot rummets aktuella ögonblicksbild vid varje träff
+    private final List<Segment<String>> roomIdsByBookingId;
+    private final Map<String, CompletableFuture<Optional<Room>>> loading = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder coalescedLoads = new LongAdder();
+
+    public CachingRoomRepository(RoomRepository delegate, int maximumSize, Duration timeToLive) {
+        this(delegate, maximumSize, timeToLive, System::nanoTime);
+    }
+
+    CachingRoomRepository(RoomRepository delegate, int maximumSize, Duration timeToLive, LongSupplier nanoTime) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Cachen måste rymma minst ett rum");
+        }
+        if (timeToLive == null || timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("Livslängden måste vara positiv");
+        }
+        this.delegate = delegate;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.nanoTime = nanoTime;
+        this.entries = segments(maximumSize, evictions);
+        this.roomIdsByBookingId = segments(maximumSize, null);
+    }
+
+    private static <V> List<Segment<V>> segments(int maximumSize, LongAdder evictions) {
+        int count = Math.max(1, Math.min(MAX_SEGMENTS, maximumSize / MIN_SEGMENT_SIZE));
+        List<Segment<V>> segments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // Resten fördelas på de första segmenten så att summan blir exakt maxstorleken
+            segments.add(new Segment<>(maximumSize / count + (i < maximumSize % count ? 1 : 0), evictions));
+        }
+        return List.copyOf(segments);
+    }
+
+    private static <V> Segment<V> segmentOf(List<Segment<V>> segments, String key) {
+        int hash = key.hashCode();
+        return segments.get(Math.floorMod(hash ^ (hash >>> 16), segments.size()));
+    }
+
+    @Override
+    public Optional<Room> findById(String id) {
+        return findSnapshotById(id).map(Room::copy);
+    }
+
+    @Override
+    public Optional<Room> findSnapshotById(String id) {
+        Room cached = cachedSnapshot(id);
+        if (cached != null) {
+            // Versionskollen är billig jämfört med att läsa hela rummet och hindrar att gammal tillgänglighet visas
+            OptionalLong currentVersion = delegate.findVersionById(id);
+            if (currentVersion.isPresent() && currentVersion.getAsLong() == cached.getVersion()) {
+                hits.increment();
+                return Optional.of(cached);
+            }
+            invalidate(id);
+        }
+        misses.increment();
+        return load(id);
+    }
+
+    private Optional<Room> load(String id) {
+        CompletableFuture<Optional<Room>> ownLoad = new CompletableFuture<>();
+        CompletableFuture<Optional<Room>> inProgress = loading.putIfAbsent(id, ownLoad);
+        if (inProgress != null) {
+            coalescedLoads.increment();
+            return awaitLoad(inProgress);
+        }
+
+        try {
+            Optional<Room> loaded = delegate.findSnapshotById(id).map(Room::snapshot);
+            loaded.ifPresent(this::cache);
+            ownLoad.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            ownLoad.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(id, ownLoad);
+        }
+    }
+
+    private static Optional<Room> awaitLoad(CompletableFuture<Optional<Room>> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Går direkt till källan: vilka rum som finns kan inte versionskontrolleras billigare än att läsa om dem
+    @Override
+    public List<Room> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public int count() {
+        return delegate.count();
+    }
+
+    @Override
+    public boolean isDurable() {
+        return delegate.isDurable();
+    }
+
+    @Override
+    public Optional<Room> findByBookingId(String bookingId) {
+        String roomId = cachedRoomIdOf(bookingId);
+        if (roomId != null) {
+            Optional<Room> room = findSnapshotById(roomId);
+            if (room.isPresent() && room.get().hasBooking(bookingId)) {
+                return room.map(Room::copy);
+            }
+            forgetBooking(bookingId);
+        }
+        Optional<Room> found = delegate.findByBookingId(bookingId);
+        found.ifPresent(room -> rememberBooking(bookingId, room.getId()));
+        return found;
+    }
+
+    @Override
+    public OptionalLong findVersionById(String id) {
+        return delegate.findVersionById(id);
+    }
+
+    @Override
+    public void save(Room room) {
+        try {
+            delegate.save(room);
+        } catch (RuntimeException e) {
+            invalidate(room.getId());
+            throw e;
+        }
+        cache(room.snapshot());
+    }
+
+    public void invalidate(String id) {
+        Segment<Entry> segment = segmentOf(entries, id);
+        synchronized (segment) {
+            segment.remove(id);
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment<Entry> segment : entries) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+        for (Segment<String> segment : roomIdsByBookingId) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    private String cachedRoomIdOf(String bookingId) {
+        Segment<String> segment = segmentOf(roomIdsByBookingId, bookingId);
+        synchronized (segment) {
+            return segment.get(bookingId);
+        }
+    }
+
+    private void rememberBooking(String bookingId, String roomId) {
+        Segment<String> segment = segmentOf(roomIdsByBookingId, bookingId);
+        synchronized (segment) {
+            segment.put(bookingId, roomId);
+        }
+    }
+
+    private void forgetBooking(String bookingId) {
+        Segment<String> segment = segmentOf(roomIdsByBookingId, bookingId);
+        synchronized (segment) {
+            segment.remove(bookingId);
+        }
+    }
+
+    private Room cachedSnapshot(String id) {
+        Segment<Entry> segment = segmentOf(entries, id);
+        synchronized (segment) {
+            Entry entry = segment.get(id);
+            if (entry == null) {
+                return null;
+            }
+            if (nanoTime.getAsLong() - entry.loadedAt() >= timeToLiveNanos) {
+                segment.remove(id);
+                evictions.increment();
+                return null;
+            }
+            return entry.snapshot();
+        }
+    }
+
+    private void cache(Room snapshot) {
+        Segment<Entry> segment = segmentOf(entries, snapshot.getId());
+        synchronized (segment) {
+            Entry existing = segment.get(snapshot.getId());
+            // En långsam laddning får inte skriva över en nyare version som sparats under tiden
+            if (existing == null || existing.snapshot().getVersion() <= snapshot.getVersion()) {
+                segment.put(snapshot.getId(), new Entry(snapshot, nanoTime.getAsLong()));
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getCoalescedLoadCount() {
+        return coalescedLoads.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<Entry> segment : entries) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class CoarseClockTimeProvider implements EpochTimeProvider, AutoCloseable {
+
+    private final Clock clock;
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("coarse-clock").daemon().factory());
+    private volatile EpochTick current;
+
+    public CoarseClockTimeProvider() {
+        this(Clock.systemDefaultZone(), Duration.ofMillis(1));
+    }
+
+    public CoarseClockTimeProvider(Clock clock, Duration resolution) {
+        if (resolution == null || resolution.isNegative() || resolution.isZero()) {
+            throw new IllegalArgumentException("Upplösningen måste vara positiv");
+        }
+        this.clock = clock;
+        refresh();
+        long nanos = resolution.toNanos();
+        ticker.scheduleAtFixedRate(this::refresh, nanos, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void refresh() {
+        EpochTick tick = EpochTick.of(LocalDateTime.now(clock));
+        EpochTick previous = current;
+        if (previous == null || previous.epochNanos() != tick.epochNanos()) {
+            current = tick;
+        }
+    }
+
+    @Override
+    public LocalDateTime getCurrentTime() {
+        return current.time();
+    }
+
+    @Override
+    public long currentEpochNanos() {
+        return current.epochNanos();
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+    }
+}
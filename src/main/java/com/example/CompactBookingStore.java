@@ -0,0 +1,325 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+// Bokningar som parallella primitiva fält sorterade på starttid, Booking-objekt skapas först när de efterfrågas.
+// Tiderna lagras som nanosekunder sedan 1970, så bokningar måste ligga inom åren 1678-2262; frågor utanför mättas.
+class CompactBookingStore implements BookingStore {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final String roomId;
+    // Skrivningar tar skrivlåset, sökningar läser optimistiskt och tar bara det delade låset om en skrivning kom emellan
+    private final StampedLock lock = new StampedLock();
+    private long[] starts;
+    private long[] ends;
+    private long[] ids;
+    private String[] foreignIds;
+    private LongToLongHashMap startsById;
+    private Map<String, Long> startsByForeignId;
+    private int size;
+    private long longestNanos;
+    // En kopia delar fälten med originalet tills någon av dem skrivs, först då kopieras de
+    private boolean shared;
+
+    CompactBookingStore(String roomId) {
+        this.roomId = roomId;
+        this.starts = new long[INITIAL_CAPACITY];
+        this.ends = new long[INITIAL_CAPACITY];
+        this.ids = new long[INITIAL_CAPACITY];
+        this.startsById = new LongToLongHashMap(INITIAL_CAPACITY);
+    }
+
+    private CompactBookingStore(CompactBookingStore source) {
+        this.roomId = source.roomId;
+        this.starts = source.starts;
+        this.ends = source.ends;
+        this.ids = source.ids;
+        this.foreignIds = source.foreignIds;
+        this.startsById = source.startsById;
+        this.startsByForeignId = source.startsByForeignId;
+        this.size = source.size;
+        this.longestNanos = source.longestNanos;
+        this.shared = true;
+        source.shared = true;
+    }
+
+    @Override
+    public boolean add(Booking booking) {
+        long stamp = lock.writeLock();
+        try {
+            return insert(booking);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private boolean insert(Booking booking) {
+        if (indexOf(booking.getId()) >= 0) {
+            return false;
+        }
+        unshare();
+        long start = EpochNanos.of(booking.getStartTime());
+        long end = EpochNanos.of(booking.getEndTime());
+        int position = insertionPoint(start, booking.getId());
+        ensureCapacity(size + 1);
+        int moved = size - position;
+        System.arraycopy(starts, position, starts, position + 1, moved);
+        System.arraycopy(ends, position, ends, position + 1, moved);
+        System.arraycopy(ids, position, ids, position + 1, moved);
+        if (foreignIds != null) {
+            System.arraycopy(foreignIds, position, foreignIds, position + 1, moved);
+            foreignIds[position] = null;
+        }
+
+        starts[position] = start;
+        ends[position] = end;
+        if (MonotonicBookingIdGenerator.isEncoded(booking.getId())) {
+            ids[position] = MonotonicBookingIdGenerator.decode(booking.getId());
+            startsById.put(ids[position], start);
+        } else {
+            // Id:n som inte kommer från generatorn sparas som strängar vid sidan av
+            if (foreignIds == null) {
+                foreignIds = new String[starts.length];
+                startsByForeignId = new HashMap<>();
+            }
+            ids[position] = 0;
+            foreignIds[position] = booking.getId();
+            startsByForeignId.put(booking.getId(), start);
+        }
+        longestNanos = Math.max(longestNanos, end - start);
+        size++;
+        return true;
+    }
+
+    @Override
+    public Booking remove(String bookingId) {
+        long stamp = lock.writeLock();
+        try {
+            return delete(bookingId);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private Booking delete(String bookingId) {
+        int index = indexOf(bookingId);
+        if (index < 0) {
+            return null;
+        }
+        unshare();
+        Booking booking = bookingAt(index);
+        if (foreignIds != null && foreignIds[index] != null) {
+            startsByForeignId.remove(bookingId);
+        } else {
+            startsById.remove(ids[index]);
+        }
+        int moved = size - index - 1;
+        System.arraycopy(starts, index + 1, starts, index, moved);
+        System.arraycopy(ends, index + 1, ends, index, moved);
+        System.arraycopy(ids, index + 1, ids, index, moved);
+        if (foreignIds != null) {
+            System.arraycopy(foreignIds, index + 1, foreignIds, index, moved);
+            foreignIds[size - 1] = null;
+        }
+        size--;
+        return booking;
+    }
+
+    @Override
+    public Booking get(String bookingId) {
+        return withReadLock(() -> {
+            int index = indexOf(bookingId);
+            return index < 0 ? null : bookingAt(index);
+        });
+    }
+
+    @Override
+    public boolean contains(String bookingId) {
+        return withReadLock(() -> indexOf(bookingId) >= 0);
+    }
+
+    @Override
+    public Booking findConflict(LocalDateTime startTime, LocalDateTime endTime) {
+        long start = EpochNanos.saturated(startTime);
+        long end = EpochNanos.saturated(endTime);
+        return readOptimistically(() -> {
+            long from = start - longestNanos;
+            if (from > start) {
+                from = Long.MIN_VALUE;
+            }
+            int conflict = -1;
+            for (int i = lowerBound(from); i < size && starts[i] <= end; i++) {
+                if (ends[i] >= start && (conflict < 0 || ends[i] > ends[conflict])) {
+                    conflict = i;
+                }
+            }
+            return conflict < 0 ? null : bookingAt(conflict);
+        });
+    }
+
+    @Override
+    public Iterator<Booking> overlapping(LocalDateTime from, LocalDateTime to, Booking after) {
+        // Fälten kan flyttas av en skrivning, så träffarna plockas ut innan läsningen valideras
+        long start = EpochNanos.saturated(from);
+        long end = EpochNanos.saturated(to);
+        long afterStart = after == null ? 0 : EpochNanos.saturated(after.getStartTime());
+        return readOptimistically(() -> {
+            long earliestStart = start - longestNanos;
+            int first = lowerBound(earliestStart > start ? Long.MIN_VALUE : earliestStart);
+            if (after != null) {
+                int position = lowerBound(afterStart);
+                while (position < size && starts[position] == afterStart
+                        && idAt(position).compareTo(after.getId()) <= 0) {
+                    position++;
+                }
+                first = Math.max(first, position);
+            }
+            List<Booking> matches = new ArrayList<>();
+            for (int i = first; i < size && starts[i] <= end; i++) {
+                if (ends[i] >= start) {
+                    matches.add(bookingAt(i));
+                }
+            }
+            return matches.iterator();
+        });
+    }
+
+    @Override
+    public Collection<Booking> all() {
+        return withReadLock(() -> {
+            List<Booking> bookings = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                bookings.add(bookingAt(i));
+            }
+            return bookings;
+        });
+    }
+
+    @Override
+    public int size() {
+        long stamp = lock.tryOptimisticRead();
+        int current = size;
+        if (stamp != 0 && lock.validate(stamp)) {
+            return current;
+        }
+        return withReadLock(() -> size);
+    }
+
+    @Override
+    public BookingStore copy() {
+        return withReadLock(() -> new CompactBookingStore(this));
+    }
+
+    private <T> T readOptimistically(Supplier<T> read) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T result = read.get();
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                // En samtidig skrivning kan ha flyttat fälten mitt i läsningen, då görs den om under låset
+            }
+        }
+        return withReadLock(read);
+    }
+
+    private <T> T withReadLock(Supplier<T> read) {
+        long stamp = lock.readLock();
+        try {
+            return read.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private Booking bookingAt(int index) {
+        return new Booking(idAt(index), roomId,
+                EpochNanos.toLocalDateTime(starts[index]), EpochNanos.toLocalDateTime(ends[index]));
+    }
+
+    private String idAt(int index) {
+        if (foreignIds != null && foreignIds[index] != null) {
+            return foreignIds[index];
+        }
+        return MonotonicBookingIdGenerator.encode(ids[index]);
+    }
+
+    private int indexOf(String bookingId) {
+        boolean generated = MonotonicBookingIdGenerator.isEncoded(bookingId);
+        long id = generated ? MonotonicBookingIdGenerator.decode(bookingId) : 0;
+        long start;
+        if (generated && startsById.containsKey(id)) {
+            start = startsById.get(id, 0);
+        } else if (!generated && startsByForeignId != null && startsByForeignId.containsKey(bookingId)) {
+            start = startsByForeignId.get(bookingId);
+        } else {
+            return -1;
+        }
+        for (int i = lowerBound(start); i < size && starts[i] == start; i++) {
+            boolean foreign = foreignIds != null && foreignIds[i] != null;
+            if (generated ? !foreign && ids[i] == id : foreign && foreignIds[i].equals(bookingId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int lowerBound(long start) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] < start) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int insertionPoint(long start, String bookingId) {
+        int position = lowerBound(start);
+        while (position < size && starts[position] == start && idAt(position).compareTo(bookingId) < 0) {
+            position++;
+        }
+        return position;
+    }
+
+    private void unshare() {
+        if (!shared) {
+            return;
+        }
+        starts = starts.clone();
+        ends = ends.clone();
+        ids = ids.clone();
+        foreignIds = foreignIds == null ? null : foreignIds.clone();
+        startsById = new LongToLongHashMap(startsById);
+        startsByForeignId = startsByForeignId == null ? null : new HashMap<>(startsByForeignId);
+        shared = false;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= starts.length) {
+            return;
+        }
+        int grown = Math.max(capacity, starts.length + (starts.length >> 1));
+        starts = Arrays.copyOf(starts, grown);
+        ends = Arrays.copyOf(ends, grown);
+        ids = Arrays.copyOf(ids, grown);
+        if (foreignIds != null) {
+            foreignIds = Arrays.copyOf(foreignIds, grown);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+final class EpochNanos {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private EpochNanos() {
+    }
+
+    // Täcker åren 1678-2262, vilket räcker för bokningar
+    static long of(LocalDateTime time) {
+        try {
+            return Math.addExact(Math.multiplyExact(time.toEpochSecond(ZoneOffset.UTC), NANOS_PER_SECOND),
+                    time.getNano());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Tiden ligger utanför det stödda intervallet: " + time);
+        }
+    }
+
+    static long saturated(LocalDateTime time) {
+        try {
+            return of(time);
+        } catch (IllegalArgumentException e) {
+            return time.getYear() < 1970 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+
+    static LocalDateTime toLocalDateTime(long epochNanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND),
+                (int) Math.floorMod(epochNanos, NANOS_PER_SECOND), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example;
+
+import java.time.LocalDateTime;
+
+// Tid och epokvärde byts ut tillsammans så att läsare aldrig ser en blandning
+record EpochTick(LocalDateTime time, long epochNanos) {
+
+    static EpochTick of(LocalDateTime time) {
+        return new EpochTick(time, EpochNanos.of(time));
+    }
+}
@@ -0,0 +1,7 @@
+package com.example;
+
+public interface EpochTimeProvider extends TimeProvider {
+
+    // Nanosekunder sedan 1970-01-01T00:00 i samma lokala tid som getCurrentTime
+    long currentEpochNanos();
+}
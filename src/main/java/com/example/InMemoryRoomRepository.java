@@ -0,0 +1,150 @@
+package com.example;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+public class InMemoryRoomRepository implements RoomRepository {
+    public static final String BOOKING_ID_INDEX = "bookingId";
+
+    private record SecondaryIndex(Function<Room, Collection<String>> keyExtractor,
+                                  Map<String, Set<String>> roomIdsByKey) {
+    }
+
+    private final Map<String, Room> snapshots = new ConcurrentHashMap<>();
+    // Bokningsindexet uppdateras från rummets ändringslogg, så en sparning kostar bara det som ändrats
+    private final Map<String, Set<String>> roomIdsByBookingId = new ConcurrentHashMap<>();
+    private final Map<String, SecondaryIndex> indexes = new ConcurrentHashMap<>();
+
+    public void addIndex(String name, Function<Room, Collection<String>> keyExtractor) {
+        SecondaryIndex index = new SecondaryIndex(keyExtractor, new ConcurrentHashMap<>());
+        if (BOOKING_ID_INDEX.equals(name) || indexes.putIfAbsent(name, index) != null) {
+            throw new IllegalArgumentException("Indexet finns redan: " + name);
+        }
+        snapshots.values().forEach(room -> updateIndex(index, null, room));
+    }
+
+    @Override
+    public Optional<Room> findById(String id) {
+        return Optional.ofNullable(snapshots.get(id)).map(Room::copy);
+    }
+
+    @Override
+    public Optional<Room> findSnapshotById(String id) {
+        return Optional.ofNullable(snapshots.get(id));
+    }
+
+    @Override
+    public OptionalLong findVersionById(String id) {
+        Room snapshot = snapshots.get(id);
+        return snapshot == null ? OptionalLong.empty() : OptionalLong.of(snapshot.getVersion());
+    }
+
+    @Override
+    public List<Room> findAll() {
+        return List.copyOf(snapshots.values());
+    }
+
+    @Override
+    public int count() {
+        return snapshots.size();
+    }
+
+    @Override
+    public List<Room> findAllById(Collection<String> ids) {
+        return ids.stream()
+                .map(snapshots::get)
+                .filter(Objects::nonNull)
+                .map(Room::copy)
+                .toList();
+    }
+
+    @Override
+    public Optional<Room> findByBookingId(String bookingId) {
+        return findByIndex(BOOKING_ID_INDEX, bookingId).stream()
+                .findFirst()
+                .map(Room::copy);
+    }
+
+    public List<Room> findByIndex(String name, String key) {
+        Map<String, Set<String>> roomIdsByKey;
+        if (BOOKING_ID_INDEX.equals(name)) {
+            roomIdsByKey = roomIdsByBookingId;
+        } else {
+            SecondaryIndex index = indexes.get(name);
+            if (index == null) {
+                throw new IllegalArgumentException("Indexet finns inte: " + name);
+            }
+            roomIdsByKey = index.roomIdsByKey();
+        }
+        return roomIdsByKey.getOrDefault(key, Set.of()).stream()
+                .map(snapshots::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public void save(Room room) {
+        Room saved = snapshots.compute(room.getId(), (id, current) -> {
+            long currentVersion = current == null ? 0 : current.getVersion();
+            if (room.getVersion() != currentVersion) {
+                throw new IllegalStateException("Rummet har ändrats sedan det lästes");
+            }
+            Room snapshot = room.snapshot();
+            snapshot.setVersion(currentVersion + 1);
+            updateBookingIndex(current, room);
+            for (SecondaryIndex index : indexes.values()) {
+                updateIndex(index, current, snapshot);
+            }
+            return snapshot;
+        });
+        room.markSaved(saved.getVersion());
+    }
+
+    private void updateBookingIndex(Room previous, Room room) {
+        if (previous == null) {
+            room.getBookings().forEach(booking -> addKey(roomIdsByBookingId, booking.getId(), room.getId()));
+            return;
+        }
+        for (Room.Change change : room.getPendingChanges()) {
+            if (change instanceof Room.BookingAdded added) {
+                addKey(roomIdsByBookingId, added.booking().getId(), room.getId());
+            } else if (change instanceof Room.BookingRemoved removed) {
+                removeKey(roomIdsByBookingId, removed.booking().getId(), room.getId());
+            }
+        }
+    }
+
+    private static void updateIndex(SecondaryIndex index, Room previous, Room current) {
+        Set<String> previousKeys = previous == null ? Set.of() : new HashSet<>(index.keyExtractor().apply(previous));
+        Set<String> currentKeys = new HashSet<>(index.keyExtractor().apply(current));
+        for (String key : previousKeys) {
+            if (!currentKeys.contains(key)) {
+                removeKey(index.roomIdsByKey(), key, current.getId());
+            }
+        }
+        for (String key : currentKeys) {
+            if (!previousKeys.contains(key)) {
+                addKey(index.roomIdsByKey(), key, current.getId());
+            }
+        }
+    }
+
+    private static void addKey(Map<String, Set<String>> roomIdsByKey, String key, String roomId) {
+        roomIdsByKey.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(roomId);
+    }
+
+    private static void removeKey(Map<String, Set<String>> roomIdsByKey, String key, String roomId) {
+        roomIdsByKey.computeIfPresent(key, (k, roomIds) -> {
+            roomIds.remove(roomId);
+            return roomIds.isEmpty() ? null : roomIds;
+        });
+    }
+}
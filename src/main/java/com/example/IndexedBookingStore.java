@@ -0,0 +1,163 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+class IndexedBookingStore implements BookingStore {
+
+    // Träden delar noder mellan versioner, så en kopia kostar inget och en ändring bara O(log n).
+    // Varje nod vet den senast slutande bokningen i sitt delträd, så krockar hittas utan att gå igenom tidigare bokningar
+    private record State(PersistentSortedMap<Booking, Booking> bookings,
+                         PersistentSortedMap<String, Booking> bookingsById) {
+    }
+
+    private static final Comparator<Booking> BY_END_TIME = Comparator.comparing(Booking::getEndTime);
+
+    private static final State EMPTY = new State(PersistentSortedMap.empty(Booking.BY_START_TIME, BY_END_TIME),
+            PersistentSortedMap.empty(Comparator.naturalOrder()));
+
+    private final AtomicReference<State> state;
+
+    IndexedBookingStore() {
+        this.state = new AtomicReference<>(EMPTY);
+    }
+
+    private IndexedBookingStore(State state) {
+        this.state = new AtomicReference<>(state);
+    }
+
+    @Override
+    public boolean add(Booking booking) {
+        while (true) {
+            State current = state.get();
+            if (current.bookingsById().get(booking.getId()) != null) {
+                return false;
+            }
+            State updated = new State(current.bookings().put(booking, booking),
+                    current.bookingsById().put(booking.getId(), booking));
+            if (state.compareAndSet(current, updated)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public Booking remove(String bookingId) {
+        while (true) {
+            State current = state.get();
+            Booking booking = current.bookingsById().get(bookingId);
+            if (booking == null) {
+                return null;
+            }
+            State updated = new State(current.bookings().remove(booking),
+                    current.bookingsById().remove(bookingId));
+            if (state.compareAndSet(current, updated)) {
+                return booking;
+            }
+        }
+    }
+
+    @Override
+    public Booking get(String bookingId) {
+        return state.get().bookingsById().get(bookingId);
+    }
+
+    @Override
+    public boolean contains(String bookingId) {
+        return get(bookingId) != null;
+    }
+
+    @Override
+    public Booking findConflict(LocalDateTime startTime, LocalDateTime endTime) {
+        // Av bokningarna som startar senast vid slutet krockar den som slutar sist, om någon gör det
+        Booking latestEnding = state.get().bookings()
+                .maxInPrefix(booking -> !booking.getStartTime().isAfter(endTime));
+        return latestEnding != null && !latestEnding.getEndTime().isBefore(startTime) ? latestEnding : null;
+    }
+
+    @Override
+    public Iterator<Booking> overlapping(LocalDateTime from, LocalDateTime to, Booking after) {
+        Predicate<Booking> endsAfterFrom = booking -> !booking.getEndTime().isBefore(from);
+        PersistentSortedMap<Booking, Booking> bookings = state.get().bookings();
+        Iterator<Booking> candidates = after != null
+                ? bookings.valuesFrom(after, false, endsAfterFrom)
+                : bookings.valuesFrom(null, true, endsAfterFrom);
+        return new OverlappingIterator(candidates, from, to);
+    }
+
+    // Skrivs för hand i stället för som en ström, eftersom lucksökningen skapar en per rum
+    private static final class OverlappingIterator implements Iterator<Booking> {
+        private final Iterator<Booking> candidates;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private Booking next;
+
+        OverlappingIterator(Iterator<Booking> candidates, LocalDateTime from, LocalDateTime to) {
+            this.candidates = candidates;
+            this.from = from;
+            this.to = to;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Booking next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Booking current = next;
+            advance();
+            return current;
+        }
+
+        private void advance() {
+            next = null;
+            while (candidates.hasNext()) {
+                Booking booking = candidates.next();
+                if (booking.getStartTime().isAfter(to)) {
+                    return;
+                }
+                if (booking.overlaps(from, to)) {
+                    next = booking;
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public Collection<Booking> all() {
+        State current = state.get();
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Booking> iterator() {
+                return current.bookings().values();
+            }
+
+            @Override
+            public int size() {
+                return current.bookings().size();
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return state.get().bookingsById().size();
+    }
+
+    @Override
+    public BookingStore copy() {
+        return new IndexedBookingStore(state.get());
+    }
+}
@@ -0,0 +1,134 @@
+package com.example;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32;
+
+record LogRecord(byte type, String roomId, String value, LocalDateTime startTime, LocalDateTime endTime) {
+    static final byte ROOM = 1;
+    static final byte ADD_BOOKING = 2;
+    static final byte REMOVE_BOOKING = 3;
+    // En återkommande bokning skrivs som ADD_RECURRING direkt följd av sin RECURRENCE_RULE
+    static final byte ADD_RECURRING = 4;
+    static final byte RECURRENCE_RULE = 5;
+    static final byte OCCURRENCE_EXCEPTION = 6;
+    static final byte REMOVE_RECURRING = 7;
+    // Som ROOM men för ett rum med kompakt lagring, så att äldre loggar fortfarande läses som indexerade rum
+    static final byte COMPACT_ROOM = 8;
+
+    static final int SIZE = 128;
+    private static final int FIELD_BYTES = 48;
+    private static final int CHECKSUM_OFFSET = SIZE - Integer.BYTES;
+    private static final LocalDateTime NO_TIME = LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC);
+
+    static LogRecord room(Room room) {
+        byte type = room.getStorage() == Room.Storage.COMPACT ? COMPACT_ROOM : ROOM;
+        return new LogRecord(type, room.getId(), room.getName(), NO_TIME, NO_TIME);
+    }
+
+    Room toRoom() {
+        return new Room(roomId, value, type == COMPACT_ROOM ? Room.Storage.COMPACT : Room.Storage.INDEXED);
+    }
+
+    static LogRecord addBooking(String roomId, Booking booking) {
+        return new LogRecord(ADD_BOOKING, roomId, booking.getId(),
+                booking.getStartTime(), booking.getEndTime());
+    }
+
+    static LogRecord removeBooking(String roomId, String bookingId) {
+        return new LogRecord(REMOVE_BOOKING, roomId, bookingId, NO_TIME, NO_TIME);
+    }
+
+    static LogRecord addRecurring(RecurringBooking recurringBooking) {
+        return new LogRecord(ADD_RECURRING, recurringBooking.getRoomId(), recurringBooking.getId(),
+                recurringBooking.getFirstStart(), recurringBooking.getFirstStart().plus(recurringBooking.getDuration()));
+    }
+
+    static LogRecord recurrenceRule(RecurringBooking recurringBooking) {
+        RecurrenceRule rule = recurringBooking.getRule();
+        String value = rule.frequency() + ":" + rule.interval() + ":" + rule.count();
+        if (rule.until() == null) {
+            return new LogRecord(RECURRENCE_RULE, recurringBooking.getRoomId(), value, NO_TIME, NO_TIME);
+        }
+        return new LogRecord(RECURRENCE_RULE, recurringBooking.getRoomId(), value + ":until", rule.until(), NO_TIME);
+    }
+
+    static LogRecord occurrenceException(String roomId, String recurringBookingId, LocalDateTime occurrenceStart) {
+        return new LogRecord(OCCURRENCE_EXCEPTION, roomId, recurringBookingId, occurrenceStart, NO_TIME);
+    }
+
+    static LogRecord removeRecurring(String roomId, String recurringBookingId) {
+        return new LogRecord(REMOVE_RECURRING, roomId, recurringBookingId, NO_TIME, NO_TIME);
+    }
+
+    Booking toBooking() {
+        return new Booking(value, roomId, startTime, endTime);
+    }
+
+    RecurringBooking toRecurringBooking(LogRecord ruleRecord) {
+        if (ruleRecord.type() != RECURRENCE_RULE || !ruleRecord.roomId().equals(roomId)) {
+            throw new IllegalStateException("Upprepningsregeln saknas efter den återkommande bokningen " + value);
+        }
+        String[] parts = ruleRecord.value().split(":");
+        RecurrenceRule rule = new RecurrenceRule(RecurrenceRule.Frequency.valueOf(parts[0]), Integer.parseInt(parts[1]),
+                parts.length > 3 ? ruleRecord.startTime() : null, Integer.parseInt(parts[2]));
+        return new RecurringBooking(value, roomId, startTime, endTime, rule);
+    }
+
+    void writeTo(ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.put(type);
+        writeField(buffer, roomId);
+        writeField(buffer, value);
+        buffer.putLong(startTime.toEpochSecond(ZoneOffset.UTC)).putInt(startTime.getNano());
+        buffer.putLong(endTime.toEpochSecond(ZoneOffset.UTC)).putInt(endTime.getNano());
+        while (buffer.position() < start + CHECKSUM_OFFSET) {
+            buffer.put((byte) 0);
+        }
+        buffer.putInt(checksum(buffer, start));
+    }
+
+    // Returnerar null för en trasig eller ofullständig post, t.ex. efter en krasch mitt i en skrivning
+    static LogRecord readFrom(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < SIZE) {
+            return null;
+        }
+        int expectedChecksum = buffer.getInt(start + CHECKSUM_OFFSET);
+        if (expectedChecksum != checksum(buffer, start)) {
+            return null;
+        }
+        byte type = buffer.get();
+        String roomId = readField(buffer);
+        String value = readField(buffer);
+        LocalDateTime startTime = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+        LocalDateTime endTime = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+        buffer.position(start + SIZE);
+        return new LogRecord(type, roomId, value, startTime, endTime);
+    }
+
+    private static void writeField(ByteBuffer buffer, String field) {
+        byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > FIELD_BYTES) {
+            throw new IllegalArgumentException("Värdet är för långt för bokningsloggen: " + field);
+        }
+        buffer.put((byte) bytes.length);
+        buffer.put(bytes);
+        buffer.put(new byte[FIELD_BYTES - bytes.length]);
+    }
+
+    private static String readField(ByteBuffer buffer) {
+        int length = buffer.get();
+        byte[] bytes = new byte[FIELD_BYTES];
+        buffer.get(bytes);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static int checksum(ByteBuffer buffer, int start) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(start, CHECKSUM_OFFSET));
+        return (int) crc.getValue();
+    }
+}
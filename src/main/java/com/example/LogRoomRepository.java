@@ -0,0 +1,403 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class LogRoomRepository implements RoomRepository, AutoCloseable {
+
+    public enum FsyncPolicy {
+        EVERY_WRITE,
+        GROUP_COMMIT,
+        INTERVAL
+    }
+
+    static final String SNAPSHOT_FILE = "rooms.snapshot";
+    static final String LOG_FILE = "rooms.log";
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final int groupCommitSize;
+    private final int compactionThreshold;
+    private final InMemoryRoomRepository rooms = new InMemoryRoomRepository();
+    // Låset skyddar bara skrivningen till loggen, fsync och komprimering görs utanför det
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Object syncLock = new Object();
+    private final Object compactionLock = new Object();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("room-log-compaction").daemon().factory());
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService syncScheduler;
+    private volatile FileChannel log;
+    private volatile Future<?> compaction = CompletableFuture.completedFuture(null);
+    private long logRecords;
+    // Antal poster som skrivits respektive synkats sedan start, oberoende av komprimeringar
+    private volatile long appendedRecords;
+    private volatile long syncedRecords;
+
+    public LogRoomRepository(Path directory) throws IOException {
+        this(directory, FsyncPolicy.EVERY_WRITE, 1, Duration.ZERO, 100_000);
+    }
+
+    public LogRoomRepository(Path directory, FsyncPolicy fsyncPolicy, int groupCommitSize,
+                             Duration syncInterval, int compactionThreshold) throws IOException {
+        if (groupCommitSize < 1 || compactionThreshold < 1) {
+            throw new IllegalArgumentException("Gruppstorlek och komprimeringsgräns måste vara minst 1");
+        }
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+        this.groupCommitSize = groupCommitSize;
+        this.compactionThreshold = compactionThreshold;
+
+        Files.createDirectories(directory);
+        Map<String, Room> recovered = new LinkedHashMap<>();
+        replay(directory.resolve(SNAPSHOT_FILE), recovered);
+        long validLogBytes = replay(directory.resolve(LOG_FILE), recovered);
+        recovered.values().forEach(rooms::save);
+
+        this.log = openLog(directory);
+        // Skär bort en halvskriven post i slutet så att nya poster hamnar på en hel postgräns
+        log.truncate(validLogBytes);
+        log.position(validLogBytes);
+        this.logRecords = validLogBytes / LogRecord.SIZE;
+
+        // Vid gruppcommit är intervallet den längsta tid en post får vänta på att gruppen fylls
+        if (fsyncPolicy != FsyncPolicy.EVERY_WRITE) {
+            if (syncInterval.isNegative() || syncInterval.isZero()) {
+                throw new IllegalArgumentException("Synkintervallet måste vara positivt");
+            }
+            this.syncScheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().factory());
+            syncScheduler.scheduleAtFixedRate(this::syncQuietly, syncInterval.toMillis(),
+                    syncInterval.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            this.syncScheduler = null;
+        }
+    }
+
+    private static long replay(Path file, Map<String, Room> recovered) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            LogRecord record;
+            int recordStart = buffer.position();
+            while ((record = LogRecord.readFrom(buffer)) != null) {
+                if (record.type() == LogRecord.ADD_RECURRING) {
+                    LogRecord rule = LogRecord.readFrom(buffer);
+                    if (rule == null) {
+                        // Regeln hann inte skrivas, så bokningen räknas som ofullständig
+                        buffer.position(recordStart);
+                        break;
+                    }
+                    recovered.get(record.roomId()).addRecurringBooking(record.toRecurringBooking(rule));
+                } else {
+                    apply(record, recovered);
+                }
+                recordStart = buffer.position();
+            }
+            return buffer.position();
+        }
+    }
+
+    private static void apply(LogRecord record, Map<String, Room> recovered) {
+        Room room = recovered.get(record.roomId());
+        switch (record.type()) {
+            case LogRecord.ROOM, LogRecord.COMPACT_ROOM -> recovered.putIfAbsent(record.roomId(), record.toRoom());
+            case LogRecord.ADD_BOOKING -> room.addBooking(record.toBooking());
+            case LogRecord.REMOVE_BOOKING -> room.removeBooking(record.value());
+            // Loggen kan spelas om ovanpå en nyare ögonblicksbild där serien redan är borttagen
+            case LogRecord.OCCURRENCE_EXCEPTION -> {
+                if (room.hasRecurringBooking(record.value())) {
+                    room.addOccurrenceException(record.value(), record.startTime());
+                }
+            }
+            case LogRecord.REMOVE_RECURRING -> room.removeRecurringBooking(record.value());
+            default -> throw new IllegalStateException("Okänd posttyp i bokningsloggen: " + record.type());
+        }
+    }
+
+    @Override
+    public Optional<Room> findById(String id) {
+        return rooms.findById(id);
+    }
+
+    @Override
+    public Optional<Room> findSnapshotById(String id) {
+        return rooms.findSnapshotById(id);
+    }
+
+    @Override
+    public OptionalLong findVersionById(String id) {
+        return rooms.findVersionById(id);
+    }
+
+    @Override
+    public List<Room> findAll() {
+        return rooms.findAll();
+    }
+
+    @Override
+    public int count() {
+        return rooms.count();
+    }
+
+    @Override
+    public boolean isDurable() {
+        return true;
+    }
+
+    @Override
+    public List<Room> findAllById(Collection<String> ids) {
+        return rooms.findAllById(ids);
+    }
+
+    @Override
+    public Optional<Room> findByBookingId(String bookingId) {
+        return rooms.findByBookingId(bookingId);
+    }
+
+    @Override
+    public void save(Room room) {
+        // Ett rum som aldrig sparats skrivs i sin helhet, annars bara ändringarna sedan förra sparningen
+        List<LogRecord> records = room.getVersion() == 0 ? fullRecords(room) : changeRecords(room);
+
+        long sequence;
+        boolean compactionDue;
+        appendLock.lock();
+        try {
+            long currentVersion = rooms.findSnapshotById(room.getId()).map(Room::getVersion).orElse(0L);
+            if (room.getVersion() != currentVersion) {
+                throw new IllegalStateException("Rummet har ändrats sedan det lästes");
+            }
+            append(records);
+            rooms.save(room);
+            sequence = appendedRecords;
+            compactionDue = logRecords >= compactionThreshold;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Kunde inte skriva till bokningsloggen", e);
+        } finally {
+            appendLock.unlock();
+        }
+
+        try {
+            if (fsyncPolicy == FsyncPolicy.EVERY_WRITE
+                    || (fsyncPolicy == FsyncPolicy.GROUP_COMMIT && sequence - syncedRecords >= groupCommitSize)) {
+                syncTo(sequence);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Kunde inte skriva till bokningsloggen", e);
+        }
+        if (compactionDue && compactionScheduled.compareAndSet(false, true)) {
+            compaction = compactor.submit(() -> {
+                try {
+                    compact();
+                } finally {
+                    compactionScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    private static List<LogRecord> fullRecords(Room room) {
+        List<LogRecord> records = new ArrayList<>();
+        records.add(LogRecord.room(room));
+        room.getBookings().forEach(booking -> records.add(LogRecord.addBooking(room.getId(), booking)));
+        room.getRecurringBookings().forEach(recurringBooking -> addRecurringRecords(records, recurringBooking));
+        return records;
+    }
+
+    private static void addRecurringRecords(List<LogRecord> records, RecurringBooking recurringBooking) {
+        records.add(LogRecord.addRecurring(recurringBooking));
+        records.add(LogRecord.recurrenceRule(recurringBooking));
+        recurringBooking.getExceptions().forEach(occurrenceStart -> records.add(LogRecord.occurrenceException(
+                recurringBooking.getRoomId(), recurringBooking.getId(), occurrenceStart)));
+    }
+
+    private static List<LogRecord> changeRecords(Room room) {
+        List<LogRecord> records = new ArrayList<>();
+        for (Room.Change change : room.getPendingChanges()) {
+            if (change instanceof Room.BookingAdded added) {
+                records.add(LogRecord.addBooking(room.getId(), added.booking()));
+            } else if (change instanceof Room.BookingRemoved removed) {
+                records.add(LogRecord.removeBooking(room.getId(), removed.booking().getId()));
+            } else if (change instanceof Room.RecurringBookingAdded added) {
+                addRecurringRecords(records, added.recurringBooking());
+            } else if (change instanceof Room.RecurringBookingRemoved removed) {
+                records.add(LogRecord.removeRecurring(room.getId(), removed.recurringBookingId()));
+            } else if (change instanceof Room.OccurrenceExceptionAdded exception) {
+                records.add(LogRecord.occurrenceException(room.getId(), exception.recurringBookingId(),
+                        exception.occurrenceStart()));
+            }
+        }
+        return records;
+    }
+
+    private void append(List<LogRecord> records) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(records.size() * LogRecord.SIZE);
+        records.forEach(record -> record.writeTo(buffer));
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            log.write(buffer);
+        }
+        logRecords += records.size();
+        appendedRecords += records.size();
+    }
+
+    public void sync() throws IOException {
+        syncTo(appendedRecords);
+    }
+
+    // Samtidiga sparningar delar på en fsync: den som kommer in efter en annans synk har redan sina poster på disk
+    private void syncTo(long sequence) throws IOException {
+        synchronized (syncLock) {
+            if (syncedRecords >= sequence) {
+                return;
+            }
+            long written = appendedRecords;
+            log.force(false);
+            syncedRecords = written;
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            // Nästa intervall försöker igen
+        }
+    }
+
+    public void compact() {
+        synchronized (compactionLock) {
+            List<Room> state;
+            long snapshotPosition;
+            appendLock.lock();
+            try {
+                state = rooms.findAll();
+                snapshotPosition = log.position();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Kunde inte komprimera bokningsloggen", e);
+            } finally {
+                appendLock.unlock();
+            }
+
+            // Ögonblicksbilderna är oföränderliga, så filen kan skrivas medan nya bokningar läggs till i loggen
+            Path temporarySnapshot = directory.resolve(SNAPSHOT_FILE + ".tmp");
+            try (FileChannel snapshot = FileChannel.open(temporarySnapshot, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (Room room : state) {
+                    writeFully(snapshot, fullRecords(room));
+                }
+                snapshot.force(true);
+                Files.move(temporarySnapshot, directory.resolve(SNAPSHOT_FILE),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Kunde inte komprimera bokningsloggen", e);
+            }
+
+            appendLock.lock();
+            try {
+                replaceLog(snapshotPosition);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Kunde inte komprimera bokningsloggen", e);
+            } finally {
+                appendLock.unlock();
+            }
+        }
+    }
+
+    // Byter loggen mot de poster som skrivits sedan ögonblicksbilden togs.
+    // Loggen spelas ovanpå ögonblicksbilden, så en krasch innan bytet ger bara dubbletter
+    private void replaceLog(long snapshotPosition) throws IOException {
+        long end = log.position();
+        ByteBuffer tail = ByteBuffer.allocate((int) (end - snapshotPosition));
+        while (tail.hasRemaining()) {
+            log.read(tail, snapshotPosition + tail.position());
+        }
+        tail.flip();
+
+        Path temporaryLog = directory.resolve(LOG_FILE + ".tmp");
+        try (FileChannel replacement = FileChannel.open(temporaryLog, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (tail.hasRemaining()) {
+                replacement.write(tail);
+            }
+            replacement.force(true);
+        }
+        synchronized (syncLock) {
+            Files.move(temporaryLog, directory.resolve(LOG_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.close();
+            log = openLog(directory);
+            log.position(log.size());
+            syncedRecords = appendedRecords;
+        }
+        logRecords = (end - snapshotPosition) / LogRecord.SIZE;
+    }
+
+    private static void writeFully(FileChannel channel, List<LogRecord> records) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(records.size() * LogRecord.SIZE);
+        records.forEach(record -> record.writeTo(buffer));
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static FileChannel openLog(Path directory) throws IOException {
+        return FileChannel.open(directory.resolve(LOG_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    void awaitCompaction() throws InterruptedException, ExecutionException {
+        compaction.get();
+    }
+
+    long getUnsyncedRecordCount() {
+        return appendedRecords - syncedRecords;
+    }
+
+    long getLogRecordCount() {
+        appendLock.lock();
+        try {
+            return logRecords;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (syncScheduler != null) {
+            syncScheduler.shutdownNow();
+        }
+        // Väntar in en pågående komprimering så att loggen inte stängs mitt i bytet
+        compactor.close();
+        sync();
+        log.close();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example;
+
+import java.util.Arrays;
+
+// Öppen adressering med linjär sondering, utan boxning av nycklar och värden
+class LongToLongHashMap {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+
+    LongToLongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.values = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    LongToLongHashMap(LongToLongHashMap source) {
+        this.keys = source.keys.clone();
+        this.values = source.values.clone();
+        this.size = source.size;
+    }
+
+    boolean containsKey(long key) {
+        return keys[slotOf(key)] != EMPTY;
+    }
+
+    long get(long key, long missing) {
+        int slot = slotOf(key);
+        return keys[slot] == EMPTY ? missing : values[slot];
+    }
+
+    void put(long key, long value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Nyckeln är reserverad");
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int slot = slotOf(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    void remove(long key) {
+        int slot = slotOf(key);
+        if (keys[slot] == EMPTY) {
+            return;
+        }
+        // Flytta tillbaka efterföljande poster så att sonderingskedjan förblir obruten
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        size--;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int slotOf(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[capacity];
+        values = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
@@ -0,0 +1,33 @@
+package com.example;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+public class ManualTimeProvider implements EpochTimeProvider {
+    private volatile EpochTick current;
+
+    public ManualTimeProvider(LocalDateTime startTime) {
+        set(startTime);
+    }
+
+    public synchronized void set(LocalDateTime time) {
+        if (time == null) {
+            throw new IllegalArgumentException("Tiden kan inte vara null");
+        }
+        current = EpochTick.of(time);
+    }
+
+    public synchronized void advance(Duration duration) {
+        set(current.time().plus(duration));
+    }
+
+    @Override
+    public LocalDateTime getCurrentTime() {
+        return current.time();
+    }
+
+    @Override
+    public long currentEpochNanos() {
+        return current.epochNanos();
+    }
+}
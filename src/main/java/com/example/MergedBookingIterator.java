@@ -0,0 +1,43 @@
+package com.example;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+final class MergedBookingIterator implements Iterator<Booking> {
+
+    private record Head(Booking booking, Iterator<Booking> source) {
+    }
+
+    private final PriorityQueue<Head> heads;
+
+    MergedBookingIterator(List<Iterator<Booking>> sources) {
+        this.heads = new PriorityQueue<>(Math.max(1, sources.size()),
+                (a, b) -> Booking.BY_START_TIME.compare(a.booking(), b.booking()));
+        for (Iterator<Booking> source : sources) {
+            advance(source);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !heads.isEmpty();
+    }
+
+    @Override
+    public Booking next() {
+        Head head = heads.poll();
+        if (head == null) {
+            throw new NoSuchElementException();
+        }
+        advance(head.source());
+        return head.booking();
+    }
+
+    private void advance(Iterator<Booking> source) {
+        if (source.hasNext()) {
+            heads.add(new Head(source.next(), source));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class MonotonicBookingIdGenerator implements BookingIdGenerator {
+    static final int ID_LENGTH = 13;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final long CUSTOM_EPOCH_MILLIS = Instant.parse("2020-01-01T00:00:00Z").toEpochMilli();
+    private static final int SEQUENCE_BITS = 22;
+    // De lägsta bitarna anger vilken trådremsa id:t kom från, så trådar räknar var för sig utan att krocka
+    private static final int STRIPE_BITS = 6;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+    // Varje remsas räknare ligger på en egen cache-rad
+    private static final int SLOT_SPACING = 8;
+    private static final int[] DIGITS = new int[128];
+
+    static {
+        Arrays.fill(DIGITS, -1);
+        for (int digit = 0; digit < ALPHABET.length; digit++) {
+            DIGITS[ALPHABET[digit]] = digit;
+        }
+    }
+
+    private final Clock clock;
+    private final AtomicLongArray last = new AtomicLongArray(STRIPES * SLOT_SPACING);
+
+    public MonotonicBookingIdGenerator() {
+        this(Clock.systemUTC());
+    }
+
+    public MonotonicBookingIdGenerator(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public String nextId() {
+        return encode(nextValue());
+    }
+
+    public long nextValue() {
+        int stripe = (int) Thread.currentThread().threadId() & (STRIPES - 1);
+        int slot = stripe * SLOT_SPACING;
+        long timestamp = (clock.millis() - CUSTOM_EPOCH_MILLIS) << (SEQUENCE_BITS - STRIPE_BITS);
+        // Samma millisekund (eller en klocka som gått bakåt) ger nästa löpnummer inom remsan
+        long previous;
+        long next;
+        do {
+            previous = last.get(slot);
+            next = Math.max(previous + 1, timestamp);
+        } while (!last.compareAndSet(slot, previous, next));
+        return next << STRIPE_BITS | stripe;
+    }
+
+    public static String encode(long value) {
+        char[] chars = new char[ID_LENGTH];
+        for (int i = ID_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    public static long decode(String id) {
+        if (id == null || id.length() != ID_LENGTH) {
+            throw new IllegalArgumentException("Ogiltigt boknings-id");
+        }
+        long value = 0;
+        for (int i = 0; i < ID_LENGTH; i++) {
+            int digit = digitOf(id.charAt(i));
+            if (digit < 0 || (i == 0 && digit > 15)) {
+                throw new IllegalArgumentException("Ogiltigt boknings-id");
+            }
+            value = (value << 5) | digit;
+        }
+        return value;
+    }
+
+    public static boolean isEncoded(String id) {
+        if (id == null || id.length() != ID_LENGTH || digitOf(id.charAt(0)) > 15) {
+            return false;
+        }
+        for (int i = 0; i < ID_LENGTH; i++) {
+            if (digitOf(id.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int digitOf(char c) {
+        return c < DIGITS.length ? DIGITS[c] : -1;
+    }
+}
@@ -0,0 +1,255 @@
+package com.example;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+// Oföränderligt AVL-träd: en ändring kopierar bara vägen från roten, resten av noderna delas med föregående version.
+// Med en maxordning håller varje nod även det största värdet i sitt delträd, så att hela delträd kan hoppas över
+final class PersistentSortedMap<K, V> {
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final Node<K, V> left;
+        final Node<K, V> right;
+        final int height;
+        final int size;
+        final V max;
+
+        Node(K key, V value, Node<K, V> left, Node<K, V> right, Comparator<? super V> maxOrder) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = 1 + Math.max(height(left), height(right));
+            this.size = 1 + size(left) + size(right);
+            this.max = maxOrder == null ? null : larger(maxOrder, value, larger(maxOrder, max(left), max(right)));
+        }
+    }
+
+    private final Comparator<? super K> comparator;
+    private final Comparator<? super V> maxOrder;
+    private final Node<K, V> root;
+
+    private PersistentSortedMap(Comparator<? super K> comparator, Comparator<? super V> maxOrder, Node<K, V> root) {
+        this.comparator = comparator;
+        this.maxOrder = maxOrder;
+        this.root = root;
+    }
+
+    static <K, V> PersistentSortedMap<K, V> empty(Comparator<? super K> comparator) {
+        return new PersistentSortedMap<>(comparator, null, null);
+    }
+
+    static <K, V> PersistentSortedMap<K, V> empty(Comparator<? super K> comparator, Comparator<? super V> maxOrder) {
+        return new PersistentSortedMap<>(comparator, maxOrder, null);
+    }
+
+    V get(K key) {
+        Node<K, V> node = root;
+        while (node != null) {
+            int comparison = comparator.compare(key, node.key);
+            if (comparison == 0) {
+                return node.value;
+            }
+            node = comparison < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    PersistentSortedMap<K, V> put(K key, V value) {
+        Node<K, V> updated = put(root, key, value);
+        return updated == root ? this : new PersistentSortedMap<>(comparator, maxOrder, updated);
+    }
+
+    PersistentSortedMap<K, V> remove(K key) {
+        Node<K, V> updated = remove(root, key);
+        return updated == root ? this : new PersistentSortedMap<>(comparator, maxOrder, updated);
+    }
+
+    // Största värdet enligt maxordningen bland nycklarna i början av ordningen där inPrefix gäller
+    V maxInPrefix(Predicate<? super K> inPrefix) {
+        V result = null;
+        Node<K, V> node = root;
+        while (node != null) {
+            if (inPrefix.test(node.key)) {
+                result = larger(maxOrder, result, larger(maxOrder, node.value, max(node.left)));
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return result;
+    }
+
+    Iterator<V> values() {
+        return new ValueIterator<>(root, null, true, comparator, value -> true);
+    }
+
+    // Värdena i nyckelordning, med början vid första nyckeln som är större än (eller lika med) from.
+    // Delträd vars största värde inte uppfyller reachable hoppas över, liksom enskilda värden som inte gör det
+    Iterator<V> valuesFrom(K from, boolean inclusive, Predicate<? super V> reachable) {
+        return new ValueIterator<>(root, from, inclusive, comparator, reachable);
+    }
+
+    private Node<K, V> node(K key, V value, Node<K, V> left, Node<K, V> right) {
+        return new Node<>(key, value, left, right, maxOrder);
+    }
+
+    private Node<K, V> put(Node<K, V> node, K key, V value) {
+        if (node == null) {
+            return node(key, value, null, null);
+        }
+        int comparison = comparator.compare(key, node.key);
+        if (comparison < 0) {
+            return balance(node.key, node.value, put(node.left, key, value), node.right);
+        }
+        if (comparison > 0) {
+            return balance(node.key, node.value, node.left, put(node.right, key, value));
+        }
+        return node.value == value ? node : node(key, value, node.left, node.right);
+    }
+
+    private Node<K, V> remove(Node<K, V> node, K key) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = comparator.compare(key, node.key);
+        if (comparison < 0) {
+            Node<K, V> left = remove(node.left, key);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        }
+        if (comparison > 0) {
+            Node<K, V> right = remove(node.right, key);
+            return right == node.right ? node : balance(node.key, node.value, node.left, right);
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node<K, V> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.key, successor.value, node.left, removeFirst(node.right));
+    }
+
+    private Node<K, V> removeFirst(Node<K, V> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.key, node.value, removeFirst(node.left), node.right);
+    }
+
+    private Node<K, V> balance(K key, V value, Node<K, V> left, Node<K, V> right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return node(left.key, left.value, left.left, node(key, value, left.right, right));
+            }
+            Node<K, V> pivot = left.right;
+            return node(pivot.key, pivot.value,
+                    node(left.key, left.value, left.left, pivot.left),
+                    node(key, value, pivot.right, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return node(right.key, right.value, node(key, value, left, right.left), right.right);
+            }
+            Node<K, V> pivot = right.left;
+            return node(pivot.key, pivot.value,
+                    node(key, value, left, pivot.left),
+                    node(right.key, right.value, pivot.right, right.right));
+        }
+        return node(key, value, left, right);
+    }
+
+    private static int height(Node<?, ?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node<?, ?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static <V> V max(Node<?, V> node) {
+        return node == null ? null : node.max;
+    }
+
+    private static <V> V larger(Comparator<? super V> order, V first, V second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        return order.compare(first, second) >= 0 ? first : second;
+    }
+
+    private static final class ValueIterator<K, V> implements Iterator<V> {
+        private final Deque<Node<K, V>> path = new ArrayDeque<>();
+        private final Predicate<? super V> reachable;
+        private Node<K, V> next;
+
+        ValueIterator(Node<K, V> root, K from, boolean inclusive, Comparator<? super K> comparator,
+                      Predicate<? super V> reachable) {
+            this.reachable = reachable;
+            Node<K, V> node = root;
+            while (node != null && (node.max == null || reachable.test(node.max))) {
+                int comparison = from == null ? 1 : comparator.compare(node.key, from);
+                if (comparison > 0 || (inclusive && comparison == 0)) {
+                    path.push(node);
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public V next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            V value = next.value;
+            advance();
+            return value;
+        }
+
+        private void advance() {
+            next = null;
+            while (!path.isEmpty()) {
+                Node<K, V> node = path.pop();
+                pushLeft(node.right);
+                if (reachable.test(node.value)) {
+                    next = node;
+                    return;
+                }
+            }
+        }
+
+        private void pushLeft(Node<K, V> node) {
+            while (node != null && (node.max == null || reachable.test(node.max))) {
+                path.push(node);
+                node = node.left;
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public record RecurrenceRule(Frequency frequency, int interval, LocalDateTime until, int count) {
+
+    public enum Frequency {
+        DAILY(ChronoUnit.DAYS),
+        WEEKLY(ChronoUnit.WEEKS),
+        MONTHLY(ChronoUnit.MONTHS);
+
+        private final ChronoUnit unit;
+
+        Frequency(ChronoUnit unit) {
+            this.unit = unit;
+        }
+    }
+
+    public RecurrenceRule {
+        if (frequency == null) {
+            throw new IllegalArgumentException("Upprepningen måste ha en frekvens");
+        }
+        if (interval < 1) {
+            throw new IllegalArgumentException("Intervallet måste vara minst 1");
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("Antalet tillfällen kan inte vara negativt");
+        }
+        // Utan slut går det inte att kontrollera krockar när upprepningen skapas
+        if (until == null && count == 0) {
+            throw new IllegalArgumentException("Upprepningen måste ha ett slutdatum eller ett antal tillfällen");
+        }
+    }
+
+    public static RecurrenceRule times(Frequency frequency, int interval, int count) {
+        return new RecurrenceRule(frequency, interval, null, count);
+    }
+
+    public static RecurrenceRule until(Frequency frequency, int interval, LocalDateTime until) {
+        return new RecurrenceRule(frequency, interval, until, 0);
+    }
+
+    LocalDateTime occurrenceStart(LocalDateTime firstStart, long index) {
+        return firstStart.plus(index * interval, frequency.unit);
+    }
+
+    long indexAtOrBefore(LocalDateTime firstStart, LocalDateTime time) {
+        if (!time.isAfter(firstStart)) {
+            return 0;
+        }
+        // Månader har olika längd, så börja på den beräknade gissningen och backa vid behov
+        long index = frequency.unit.between(firstStart, time) / interval;
+        while (index > 0 && occurrenceStart(firstStart, index).isAfter(time)) {
+            index--;
+        }
+        return index;
+    }
+
+    boolean hasOccurrence(LocalDateTime firstStart, long index) {
+        if (index < 0 || (count > 0 && index >= count)) {
+            return false;
+        }
+        return until == null || !occurrenceStart(firstStart, index).isAfter(until);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+public class RecurringBooking {
+    private final String id;
+    private final String roomId;
+    private final LocalDateTime firstStart;
+    private final Duration duration;
+    private final RecurrenceRule rule;
+    private final Set<LocalDateTime> exceptions;
+
+    public RecurringBooking(String id, String roomId, LocalDateTime firstStart, LocalDateTime firstEnd,
+                            RecurrenceRule rule) {
+        this(id, roomId, firstStart, Duration.between(firstStart, firstEnd), rule, Set.of());
+    }
+
+    private RecurringBooking(String id, String roomId, LocalDateTime firstStart, Duration duration,
+                             RecurrenceRule rule, Set<LocalDateTime> exceptions) {
+        this.id = id;
+        this.roomId = roomId;
+        this.firstStart = firstStart;
+        this.duration = duration;
+        this.rule = rule;
+        this.exceptions = exceptions;
+    }
+
+    public RecurringBooking withException(LocalDateTime occurrenceStart) {
+        Set<LocalDateTime> updated = new HashSet<>(exceptions);
+        updated.add(occurrenceStart);
+        return new RecurringBooking(id, roomId, firstStart, duration, rule, Set.copyOf(updated));
+    }
+
+    public boolean isOccurrence(LocalDateTime startTime) {
+        if (startTime.isBefore(firstStart) || exceptions.contains(startTime)) {
+            return false;
+        }
+        long index = rule.indexAtOrBefore(firstStart, startTime);
+        return rule.hasOccurrence(firstStart, index) && rule.occurrenceStart(firstStart, index).equals(startTime);
+    }
+
+    public Stream<Booking> getOccurrences() {
+        return occurrencesFrom(0, null);
+    }
+
+    public Stream<Booking> getOccurrences(LocalDateTime from, LocalDateTime to) {
+        // Bara tillfällen som startar efter (from - längd) kan nå in i fönstret
+        long firstIndex = rule.indexAtOrBefore(firstStart, from.minus(duration));
+        return occurrencesFrom(firstIndex, to)
+                .filter(occurrence -> occurrence.overlaps(from, to));
+    }
+
+    Booking findConflict(LocalDateTime startTime, LocalDateTime endTime) {
+        return getOccurrences(startTime, endTime)
+                .max(Comparator.comparing(Booking::getEndTime))
+                .orElse(null);
+    }
+
+    LocalDateTime getLastEnd() {
+        long last = rule.count() > 0 ? rule.count() - 1 : Long.MAX_VALUE;
+        if (rule.until() != null) {
+            last = Math.min(last, rule.indexAtOrBefore(firstStart, rule.until()));
+        }
+        return rule.occurrenceStart(firstStart, last).plus(duration);
+    }
+
+    private Stream<Booking> occurrencesFrom(long firstIndex, LocalDateTime to) {
+        return LongStream.iterate(firstIndex,
+                        index -> rule.hasOccurrence(firstStart, index)
+                                && (to == null || !rule.occurrenceStart(firstStart, index).isAfter(to)),
+                        index -> index + 1)
+                .mapToObj(this::occurrence)
+                .filter(occurrence -> !exceptions.contains(occurrence.getStartTime()));
+    }
+
+    private Booking occurrence(long index) {
+        LocalDateTime startTime = rule.occurrenceStart(firstStart, index);
+        return new Booking(id + "#" + index, roomId, startTime, startTime.plus(duration));
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public LocalDateTime getFirstStart() {
+        return firstStart;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public RecurrenceRule getRule() {
+        return rule;
+    }
+
+    public Set<LocalDateTime> getExceptions() {
+        return exceptions;
+    }
+}
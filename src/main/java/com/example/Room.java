@@ -1,43 +1,241 @@
 package com.example;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class Room {
+
+    public enum Storage {
+        INDEXED,
+        COMPACT
+    }
+
+    // Ändringar sedan rummet senast sparades, så att ett repository kan skriva bara skillnaden
+    sealed interface Change {
+    }
+
+    record BookingAdded(Booking booking) implements Change {
+    }
+
+    record BookingRemoved(Booking booking) implements Change {
+    }
+
+    record RecurringBookingAdded(RecurringBooking recurringBooking) implements Change {
+    }
+
+    record RecurringBookingRemoved(String recurringBookingId) implements Change {
+    }
+
+    record OccurrenceExceptionAdded(String recurringBookingId, LocalDateTime occurrenceStart) implements Change {
+    }
+
     private final String id;
     private final String name;
-    private final Set<Booking> bookings = new HashSet<>();
+    private final Storage storage;
+    private final BookingStore bookings;
+    private final Map<String, RecurringBooking> recurringBookings;
+    private final Queue<Change> pendingChanges;
+    private final boolean readOnly;
+    private volatile long version;
 
     public Room(String id, String name) {
+        this(id, name, Storage.INDEXED);
+    }
+
+    public Room(String id, String name, Storage storage) {
         this.id = id;
         this.name = name;
+        this.storage = storage;
+        this.bookings = storage == Storage.COMPACT ? new CompactBookingStore(id) : new IndexedBookingStore();
+        this.recurringBookings = new ConcurrentHashMap<>();
+        this.pendingChanges = new ConcurrentLinkedQueue<>();
+        this.readOnly = false;
+    }
+
+    private Room(Room source, boolean readOnly) {
+        this.id = source.id;
+        this.name = source.name;
+        this.storage = source.storage;
+        this.bookings = source.bookings.copy();
+        this.recurringBookings = new ConcurrentHashMap<>(source.recurringBookings);
+        // En ögonblicksbild är alltid sparad, en arbetskopia bär med sig det som ännu inte sparats
+        this.pendingChanges = new ConcurrentLinkedQueue<>(readOnly ? List.of() : source.pendingChanges);
+        this.readOnly = readOnly;
+        this.version = source.version;
+    }
+
+    public Room copy() {
+        return new Room(this, false);
+    }
+
+    public Room snapshot() {
+        return readOnly ? this : new Room(this, true);
     }
 
     public boolean isAvailable(LocalDateTime startTime, LocalDateTime endTime) {
-        return bookings.stream()
-                .noneMatch(booking ->
-                        booking.overlaps(startTime, endTime));
+        return findConflict(startTime, endTime) == null;
+    }
+
+    // Bara vanliga bokningar, utan tillfällen från upprepningar
+    boolean hasSingleBookingBetween(LocalDateTime startTime, LocalDateTime endTime) {
+        return bookings.findConflict(startTime, endTime) != null;
+    }
+
+    private Booking findConflict(LocalDateTime startTime, LocalDateTime endTime) {
+        Booking conflict = bookings.findConflict(startTime, endTime);
+        // Upprepningar expanderas bara inom det efterfrågade fönstret
+        for (RecurringBooking recurringBooking : recurringBookings.values()) {
+            Booking occurrence = recurringBooking.findConflict(startTime, endTime);
+            if (occurrence != null && (conflict == null || occurrence.getEndTime().isAfter(conflict.getEndTime()))) {
+                conflict = occurrence;
+            }
+        }
+        return conflict;
+    }
+
+    public LocalDateTime nextAvailableStart(LocalDateTime earliestStart, Duration duration) {
+        LocalDateTime candidate = earliestStart;
+        Booking conflict = findConflict(candidate, candidate.plus(duration));
+        while (conflict != null) {
+            // Bokningar överlappar inklusive sluttiden, så nästa möjliga start ligger direkt efter
+            candidate = conflict.getEndTime().plusNanos(1);
+            conflict = findConflict(candidate, candidate.plus(duration));
+        }
+        return candidate;
     }
 
     public void addBooking(Booking booking) {
-        bookings.add(booking);
+        checkWritable();
+        if (bookings.add(booking)) {
+            pendingChanges.add(new BookingAdded(booking));
+        }
     }
 
     public void removeBooking(String bookingId) {
-        bookings.removeIf(booking -> booking.getId().equals(bookingId));
+        checkWritable();
+        Booking removed = bookings.remove(bookingId);
+        if (removed != null) {
+            pendingChanges.add(new BookingRemoved(removed));
+        }
+    }
+
+    public void addRecurringBooking(RecurringBooking recurringBooking) {
+        checkWritable();
+        recurringBookings.put(recurringBooking.getId(), recurringBooking);
+        pendingChanges.add(new RecurringBookingAdded(recurringBooking));
+    }
+
+    public void removeRecurringBooking(String recurringBookingId) {
+        checkWritable();
+        if (recurringBookings.remove(recurringBookingId) != null) {
+            pendingChanges.add(new RecurringBookingRemoved(recurringBookingId));
+        }
+    }
+
+    public void addOccurrenceException(String recurringBookingId, LocalDateTime occurrenceStart) {
+        checkWritable();
+        recurringBookings.put(recurringBookingId,
+                getRecurringBooking(recurringBookingId).withException(occurrenceStart));
+        pendingChanges.add(new OccurrenceExceptionAdded(recurringBookingId, occurrenceStart));
+    }
+
+    public boolean hasRecurringBooking(String recurringBookingId) {
+        return recurringBookings.containsKey(recurringBookingId);
+    }
+
+    public RecurringBooking getRecurringBooking(String recurringBookingId) {
+        RecurringBooking recurringBooking = recurringBookings.get(recurringBookingId);
+        if (recurringBooking == null) {
+            throw new IllegalArgumentException("Återkommande bokning finns inte");
+        }
+        return recurringBooking;
+    }
+
+    public Collection<RecurringBooking> getRecurringBookings() {
+        return Collections.unmodifiableCollection(recurringBookings.values());
     }
 
     public boolean hasBooking(String bookingId) {
-        return bookings.stream()
-                .anyMatch(booking -> booking.getId().equals(bookingId));
+        return bookings.contains(bookingId);
     }
 
     public Booking getBooking(String bookingId) {
-        return bookings.stream()
-                .filter(booking -> booking.getId().equals(bookingId))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Bokning finns inte"));
+        Booking booking = bookings.get(bookingId);
+        if (booking == null) {
+            throw new IllegalArgumentException("Bokning finns inte");
+        }
+        return booking;
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Rummet är en ögonblicksbild och kan inte ändras");
+        }
+    }
+
+    public Collection<Booking> getBookings() {
+        return bookings.all();
+    }
+
+    public Stream<Booking> getBookings(LocalDateTime from, LocalDateTime to) {
+        Iterator<Booking> iterator = getBookings(from, to, null);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT), false);
+    }
+
+    Iterator<Booking> getBookings(LocalDateTime from, LocalDateTime to, Booking after) {
+        if (recurringBookings.isEmpty()) {
+            return bookings.overlapping(from, to, after);
+        }
+
+        // Tillfällen före markören kan hoppas över direkt eftersom de ändå sorteras bort
+        LocalDateTime occurrencesFrom = after != null && after.getStartTime().isAfter(from)
+                ? after.getStartTime()
+                : from;
+        List<Iterator<Booking>> sources = new ArrayList<>(recurringBookings.size() + 1);
+        sources.add(bookings.overlapping(from, to, after));
+        for (RecurringBooking recurringBooking : recurringBookings.values()) {
+            sources.add(recurringBooking.getOccurrences(occurrencesFrom, to)
+                    .filter(occurrence -> after == null || Booking.BY_START_TIME.compare(occurrence, after) > 0)
+                    .iterator());
+        }
+        return new MergedBookingIterator(sources);
+    }
+
+    public List<Booking> getBookingsEndedBefore(LocalDateTime cutoff) {
+        // Bara bokningar som börjar före gränsen gås igenom, utan att hela listan byggs för kompakt lagring
+        List<Booking> ended = new ArrayList<>();
+        Iterator<Booking> iterator = bookings.overlapping(LocalDateTime.MIN, cutoff, null);
+        while (iterator.hasNext()) {
+            Booking booking = iterator.next();
+            if (booking.getEndTime().isBefore(cutoff)) {
+                ended.add(booking);
+            }
+        }
+        return ended;
+    }
+
+    public List<RecurringBooking> getRecurringBookingsEndedBefore(LocalDateTime cutoff) {
+        return recurringBookings.values().stream()
+                .filter(recurringBooking -> recurringBooking.getLastEnd().isBefore(cutoff))
+                .toList();
+    }
+
+    public int getBookingCount() {
+        return bookings.size();
     }
 
     public String getId() {
@@ -47,4 +245,29 @@ public class Room {
     public String getName() {
         return name;
     }
+
+    public Storage getStorage() {
+        return storage;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    void setVersion(long version) {
+        this.version = version;
+    }
+
+    List<Change> getPendingChanges() {
+        return List.copyOf(pendingChanges);
+    }
+
+    void markSaved(long version) {
+        this.version = version;
+        pendingChanges.clear();
+    }
 }
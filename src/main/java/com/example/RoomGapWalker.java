@@ -0,0 +1,68 @@
+package com.example;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+
+final class RoomGapWalker {
+
+    private final Room room;
+    private final Duration duration;
+    private final LocalDateTime latestStart;
+    private final LocalDateTime latestEnd;
+    private Iterator<Booking> bookings;
+    private LocalDateTime gapStart;
+    private Booking gapEnd;
+
+    RoomGapWalker(Room room, Duration duration, LocalDateTime earliestStart, LocalDateTime latestEnd) {
+        this.room = room;
+        this.duration = duration;
+        this.latestStart = latestEnd.minus(duration);
+        this.latestEnd = latestEnd;
+        this.gapStart = earliestStart;
+    }
+
+    Room getRoom() {
+        return room;
+    }
+
+    LocalDateTime nextSlotStart() {
+        if (gapStart == null) {
+            return null;
+        }
+
+        if (bookings == null) {
+            // Rum som aldrig behöver undersökas ska inte kosta mer än själva objektet
+            bookings = room.getBookings(gapStart, latestEnd, null);
+        }
+
+        if (gapEnd != null) {
+            skipPast(gapEnd);
+            gapEnd = null;
+        }
+
+        while (gapStart != null && bookings.hasNext()) {
+            Booking booking = bookings.next();
+            if (booking.getStartTime().isAfter(gapStart.plus(duration))) {
+                // Bokningarna kommer i startordning, så luckan före den här räcker
+                gapEnd = booking;
+                return gapStart;
+            }
+            skipPast(booking);
+        }
+
+        LocalDateTime slotStart = gapStart;
+        gapStart = null;
+        return slotStart;
+    }
+
+    private void skipPast(Booking booking) {
+        if (!booking.getEndTime().isBefore(gapStart)) {
+            // Bokningar överlappar inklusive sluttiden, så nästa möjliga start ligger direkt efter
+            gapStart = booking.getEndTime().plusNanos(1);
+            if (gapStart.isAfter(latestStart)) {
+                gapStart = null;
+            }
+        }
+    }
+}
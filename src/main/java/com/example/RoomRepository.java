@@ -1,10 +1,48 @@
 package com.example;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 public interface RoomRepository {
     Optional<Room> findById(String id);
     List<Room> findAll();
     void save(Room room);
+
+    default Optional<Room> findSnapshotById(String id) {
+        return findById(id);
+    }
+
+    default OptionalLong findVersionById(String id) {
+        return findSnapshotById(id)
+                .map(room -> OptionalLong.of(room.getVersion()))
+                .orElse(OptionalLong.empty());
+    }
+
+    default int count() {
+        return findAll().size();
+    }
+
+    // Om sparade rum finns kvar efter en omstart
+    default boolean isDurable() {
+        return false;
+    }
+
+    default List<Room> findAllById(Collection<String> ids) {
+        return ids.stream()
+                .map(this::findById)
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    default void saveAll(Collection<Room> rooms) {
+        rooms.forEach(this::save);
+    }
+
+    default Optional<Room> findByBookingId(String bookingId) {
+        return findAll().stream()
+                .filter(room -> room.hasBooking(bookingId))
+                .findFirst();
+    }
 }
@@ -0,0 +1,84 @@
+package com.example;
+
+import java.util.Collection;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+public class StripedRoomLocks {
+    private final StampedLock[] stripes;
+
+    public StripedRoomLocks(int stripeCount) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("Antal lås måste vara minst 1");
+        }
+        int size = 1;
+        while (size < stripeCount) {
+            size <<= 1;
+        }
+        this.stripes = new StampedLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new StampedLock();
+        }
+    }
+
+    public <T> T withWriteLock(String roomId, Supplier<T> action) {
+        StampedLock lock = forRoom(roomId);
+        long stamp = lock.writeLock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public <T> T withWriteLocks(Collection<String> roomIds, Supplier<T> action) {
+        // Lås i stigande ordning så att två batcher inte kan låsa varandra
+        int[] indexes = roomIds.stream()
+                .mapToInt(this::stripeIndex)
+                .distinct()
+                .sorted()
+                .toArray();
+        long[] stamps = new long[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            stamps[i] = stripes[indexes[i]].writeLock();
+        }
+        try {
+            return action.get();
+        } finally {
+            for (int i = indexes.length - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlockWrite(stamps[i]);
+            }
+        }
+    }
+
+    public boolean readOptimistically(String roomId, BooleanSupplier read) {
+        StampedLock lock = forRoom(roomId);
+        long stamp = lock.tryOptimisticRead();
+        boolean result = read.getAsBoolean();
+        if (stamp != 0 && lock.validate(stamp)) {
+            return result;
+        }
+        // En skrivning pågick under läsningen, läs om under delat lås
+        stamp = lock.readLock();
+        try {
+            return read.getAsBoolean();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    private StampedLock forRoom(String roomId) {
+        return stripes[stripeIndex(roomId)];
+    }
+
+    private int stripeIndex(String roomId) {
+        int hash = roomId.hashCode();
+        hash ^= (hash >>> 16);
+        return hash & (stripes.length - 1);
+    }
+}
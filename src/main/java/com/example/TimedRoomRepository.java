@@ -0,0 +1,101 @@
+package com.example;
+
+import com.example.metrics.MetricsSink;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Supplier;
+
+final class TimedRoomRepository implements RoomRepository {
+
+    private static final String PREFIX = "dependency.RoomRepository.";
+    private static final String FIND_BY_ID = PREFIX + "findById";
+    private static final String FIND_ALL = PREFIX + "findAll";
+    private static final String SAVE = PREFIX + "save";
+    private static final String FIND_SNAPSHOT_BY_ID = PREFIX + "findSnapshotById";
+    private static final String FIND_VERSION_BY_ID = PREFIX + "findVersionById";
+    private static final String FIND_ALL_BY_ID = PREFIX + "findAllById";
+    private static final String COUNT = PREFIX + "count";
+    private static final String SAVE_ALL = PREFIX + "saveAll";
+    private static final String FIND_BY_BOOKING_ID = PREFIX + "findByBookingId";
+
+    private final RoomRepository delegate;
+    private final MetricsSink metrics;
+
+    private TimedRoomRepository(RoomRepository delegate, MetricsSink metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    static RoomRepository wrap(RoomRepository repository, MetricsSink metrics) {
+        RoomRepository untimed = repository instanceof TimedRoomRepository timed ? timed.delegate : repository;
+        return metrics == MetricsSink.NOOP ? untimed : new TimedRoomRepository(untimed, metrics);
+    }
+
+    @Override
+    public Optional<Room> findById(String id) {
+        return timed(FIND_BY_ID, () -> delegate.findById(id));
+    }
+
+    @Override
+    public List<Room> findAll() {
+        return timed(FIND_ALL, delegate::findAll);
+    }
+
+    @Override
+    public void save(Room room) {
+        timed(SAVE, () -> {
+            delegate.save(room);
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<Room> findSnapshotById(String id) {
+        return timed(FIND_SNAPSHOT_BY_ID, () -> delegate.findSnapshotById(id));
+    }
+
+    @Override
+    public OptionalLong findVersionById(String id) {
+        return timed(FIND_VERSION_BY_ID, () -> delegate.findVersionById(id));
+    }
+
+    @Override
+    public int count() {
+        return timed(COUNT, delegate::count);
+    }
+
+    @Override
+    public boolean isDurable() {
+        return delegate.isDurable();
+    }
+
+    @Override
+    public List<Room> findAllById(Collection<String> ids) {
+        return timed(FIND_ALL_BY_ID, () -> delegate.findAllById(ids));
+    }
+
+    @Override
+    public void saveAll(Collection<Room> rooms) {
+        timed(SAVE_ALL, () -> {
+            delegate.saveAll(rooms);
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<Room> findByBookingId(String bookingId) {
+        return timed(FIND_BY_BOOKING_ID, () -> delegate.findByBookingId(bookingId));
+    }
+
+    private <T> T timed(String metricName, Supplier<T> call) {
+        long startedAt = metrics.startTimer();
+        try {
+            return call.get();
+        } finally {
+            metrics.stopTimer(metricName, startedAt);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class LatencyHistogram {
+
+    // 32 delhinkar per tvåpotens ger högst drygt 3 % fel oavsett storleksordning
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    // Summa och max ligger efter hinkarna, antalet räknas fram ur hinkarna när någon läser
+    private static final int SUM = BUCKET_COUNT;
+    private static final int MAX = BUCKET_COUNT + 1;
+    private static final int STRIPE_LENGTH = BUCKET_COUNT + 2;
+    private static final int STRIPES = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+    // Trådar skriver i var sin remsa så att de inte tävlar om samma räknare, remsorna skapas vid första skrivning
+    private final AtomicReferenceArray<AtomicLongArray> stripes = new AtomicReferenceArray<>(STRIPES);
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        AtomicLongArray stripe = stripeForCurrentThread();
+        stripe.getAndIncrement(indexOf(value));
+        stripe.getAndAdd(SUM, value);
+        if (value > stripe.get(MAX)) {
+            stripe.accumulateAndGet(MAX, value, Math::max);
+        }
+    }
+
+    private AtomicLongArray stripeForCurrentThread() {
+        int index = (int) Thread.currentThread().threadId() & (STRIPES - 1);
+        AtomicLongArray stripe = stripes.get(index);
+        if (stripe == null) {
+            stripes.compareAndSet(index, null, new AtomicLongArray(STRIPE_LENGTH));
+            stripe = stripes.get(index);
+        }
+        return stripe;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            AtomicLongArray stripe = stripes.get(i);
+            if (stripe != null) {
+                for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                    count += stripe.get(bucket);
+                }
+            }
+        }
+        return count;
+    }
+
+    public long getMax() {
+        long max = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            AtomicLongArray stripe = stripes.get(i);
+            if (stripe != null) {
+                max = Math.max(max, stripe.get(MAX));
+            }
+        }
+        return max;
+    }
+
+    public double getMean() {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            AtomicLongArray stripe = stripes.get(i);
+            if (stripe != null) {
+                sum += stripe.get(SUM);
+            }
+        }
+        return (double) sum / count;
+    }
+
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentilen måste ligga mellan 0 och 100");
+        }
+
+        long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            AtomicLongArray stripe = stripes.get(i);
+            if (stripe != null) {
+                for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                    long bucketCount = stripe.get(bucket);
+                    counts[bucket] += bucketCount;
+                    count += bucketCount;
+                }
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        long max = getMax();
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValueIn(i), max);
+            }
+        }
+        return max;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    static long highestValueIn(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+        long highest = ((subBucket + 1) << shift) - 1;
+        return highest < 0 ? Long.MAX_VALUE : highest;
+    }
+}
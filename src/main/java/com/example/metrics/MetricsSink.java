@@ -0,0 +1,40 @@
+package com.example.metrics;
+
+public interface MetricsSink {
+
+    MetricsSink NOOP = new MetricsSink() {
+        @Override
+        public void recordLatency(String name, long nanos) {
+        }
+
+        @Override
+        public void increment(String name, long delta) {
+        }
+
+        @Override
+        public long startTimer() {
+            // Ingen klockavläsning alls när mätningar är avstängda
+            return 0;
+        }
+
+        @Override
+        public void stopTimer(String name, long startedAt) {
+        }
+    };
+
+    void recordLatency(String name, long nanos);
+
+    void increment(String name, long delta);
+
+    default void increment(String name) {
+        increment(name, 1);
+    }
+
+    default long startTimer() {
+        return System.nanoTime();
+    }
+
+    default void stopTimer(String name, long startedAt) {
+        recordLatency(name, System.nanoTime() - startedAt);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+
+public record Money(long minorUnits, Currency currency) implements Comparable<Money> {
+
+    public static final Currency SEK = Currency.getInstance("SEK");
+
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000};
+
+    public Money {
+        if (currency == null) {
+            throw new IllegalArgumentException("Valuta kan inte vara null");
+        }
+        if (currency.getDefaultFractionDigits() < 0 || currency.getDefaultFractionDigits() >= POWERS_OF_TEN.length) {
+            throw new IllegalArgumentException("Valutan saknar stöd för decimaler: " + currency);
+        }
+    }
+
+    public static Money zero(Currency currency) {
+        return new Money(0, currency);
+    }
+
+    public static Money ofMinor(long minorUnits, Currency currency) {
+        return new Money(minorUnits, currency);
+    }
+
+    public static Money of(BigDecimal amount, Currency currency, RoundingMode rounding) {
+        // Omvandling sker bara vid gränssnitten, så BigDecimal kostar inget i själva räknandet
+        long minorUnits = amount.setScale(currency.getDefaultFractionDigits(), rounding).unscaledValue().longValueExact();
+        return new Money(minorUnits, currency);
+    }
+
+    public static Money of(double amount, Currency currency, RoundingMode rounding) {
+        if (!Double.isFinite(amount)) {
+            throw new IllegalArgumentException("Beloppet måste vara ett ändligt tal");
+        }
+        return of(BigDecimal.valueOf(amount), currency, rounding);
+    }
+
+    public Money plus(Money other) {
+        checkSameCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        checkSameCurrency(other);
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money times(long quantity) {
+        return new Money(Math.multiplyExact(minorUnits, quantity), currency);
+    }
+
+    public Money percentage(int percent, RoundingMode rounding) {
+        return new Money(divide(Math.multiplyExact(minorUnits, (long) percent), 100, rounding), currency);
+    }
+
+    public Money max(Money other) {
+        return compareTo(other) >= 0 ? this : other;
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    public double toDouble() {
+        // Heltal delat med en tiopotens ger samma double som decimalliteralen
+        return minorUnits / (double) POWERS_OF_TEN[currency.getDefaultFractionDigits()];
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, currency.getDefaultFractionDigits());
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        checkSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + " " + currency.getCurrencyCode();
+    }
+
+    private void checkSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Valutorna matchar inte: " + currency + " och " + other.currency);
+        }
+    }
+
+    static long divide(long dividend, long divisor, RoundingMode rounding) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        int signum = Long.signum(dividend) * Long.signum(divisor);
+        long absRemainder = Math.abs(remainder);
+        long absRest = Math.abs(divisor) - absRemainder;
+        boolean awayFromZero = switch (rounding) {
+            case UNNECESSARY -> throw new ArithmeticException("Beloppet kan inte anges exakt utan avrundning");
+            case DOWN -> false;
+            case UP -> true;
+            case FLOOR -> signum < 0;
+            case CEILING -> signum > 0;
+            case HALF_UP -> absRemainder >= absRest;
+            case HALF_DOWN -> absRemainder > absRest;
+            case HALF_EVEN -> absRemainder > absRest || (absRemainder == absRest && (quotient & 1) != 0);
+        };
+        return awayFromZero ? quotient + signum : quotient;
+    }
+}
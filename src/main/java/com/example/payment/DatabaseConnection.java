@@ -1,5 +1,65 @@
 package com.example.payment;
 
+import java.math.BigDecimal;
+import java.util.List;
+
 public interface DatabaseConnection {
     void executeUpdate(String query);
+
+    // Parametrarna binds till ? i satsen, så satsen kan förberedas en gång och återanvändas.
+    // Äldre anslutningar som bara tar färdiga satser får parametrarna inskrivna som SQL-literaler
+    default void executeUpdate(String statement, Object... parameters) {
+        StringBuilder query = new StringBuilder(statement.length() + 16 * parameters.length);
+        int next = 0;
+        boolean inString = false;
+        for (int i = 0; i < statement.length(); i++) {
+            char c = statement.charAt(i);
+            if (c == '\'') {
+                inString = !inString;
+            }
+            if (c == '?' && !inString) {
+                if (next == parameters.length) {
+                    throw new IllegalArgumentException("Satsen har fler platshållare än parametrar");
+                }
+                query.append(literal(parameters[next++]));
+            } else {
+                query.append(c);
+            }
+        }
+        if (next != parameters.length) {
+            throw new IllegalArgumentException("Satsen har färre platshållare än parametrar");
+        }
+        executeUpdate(query.toString());
+    }
+
+    default void executeBatch(String statement, List<Object[]> parameterSets) {
+        for (Object[] parameters : parameterSets) {
+            executeUpdate(statement, parameters);
+        }
+    }
+
+    private static String literal(Object parameter) {
+        if (parameter == null) {
+            return "NULL";
+        }
+        if (parameter instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        if (parameter instanceof Integer || parameter instanceof Long
+                || parameter instanceof Short || parameter instanceof Byte) {
+            return parameter.toString();
+        }
+        if (parameter instanceof Boolean bool) {
+            return bool ? "TRUE" : "FALSE";
+        }
+        if (parameter instanceof String text) {
+            // Bakstreck och styrtecken tolkas olika av olika databaser och släpps därför inte igenom
+            if (text.chars().anyMatch(c -> c == '\\' || Character.isISOControl(c))) {
+                throw new IllegalArgumentException("Texten kan inte skrivas in säkert i satsen");
+            }
+            // Fnuttar dubbleras så att texten aldrig kan avsluta literalen i förtid
+            return "'" + text.replace("'", "''") + "'";
+        }
+        throw new IllegalArgumentException("Parametertypen stöds inte: " + parameter.getClass().getName());
+    }
 }
@@ -1,10 +1,41 @@
 package com.example.payment;
 
+import com.example.metrics.MetricsSink;
+import com.example.money.Money;
+
+import java.math.RoundingMode;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 public class PaymentProcessor {
+    static final String INSERT_PAYMENT = "INSERT INTO payments (amount, status) VALUES (?, ?)";
+    private static final String STATUS_SUCCESS = "SUCCESS";
     private static final String API_KEY = "sk_test_123456";
+    private static final String PROCESS_PAYMENT_LATENCY = "payment.processPayment";
+    private static final String PAYMENT_SUCCEEDED = "payment.success";
+    private static final String PAYMENT_DECLINED = "payment.declined";
+    private static final String CHARGE = "dependency.PaymentApi.charge";
+    private static final String EXECUTE_UPDATE = "dependency.DatabaseConnection.executeUpdate";
+    private static final String SEND_CONFIRMATION = "dependency.EmailService.sendPaymentConfirmation";
+
+    // Debiteringens utfall är känt direkt, bekräftelsen först när raden finns i databasen
+    private record Outcome(boolean charged, CompletableFuture<Boolean> acknowledgement) {
+    }
+
+    // Skapas först när någon behöver den, så att bekräftelsemejl aldrig skickas på skrivbuffertens tråd
+    private static final class DefaultConfirmationExecutor {
+        static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(
+                Thread.ofPlatform().name("payment-confirmations").daemon().factory());
+    }
+
     private final DatabaseConnection databaseConnection;
     private final EmailService emailService;
     private final PaymentApi paymentApi;
+    private MetricsSink metrics = MetricsSink.NOOP;
+    private PaymentWriteBuffer writeBuffer;
+    private Executor confirmationExecutor;
 
     public PaymentProcessor(DatabaseConnection databaseConnection, EmailService emailService, PaymentApi paymentApi) {
         this.databaseConnection = databaseConnection;
@@ -13,20 +44,75 @@ public class PaymentProcessor {
     }
 
     public boolean processPayment(double amount) {
+        return processPayment(Money.of(amount, Money.SEK, RoundingMode.HALF_EVEN));
+    }
+
+    public boolean processPayment(Money amount) {
+        // Svaret är alltid debiteringens utfall, oavsett om raden skrivs direkt eller i nästa batch
+        return process(amount).charged();
+    }
+
+    public CompletableFuture<Boolean> processPaymentAcknowledged(Money amount) {
+        return process(amount).acknowledgement();
+    }
+
+    private Outcome process(Money amount) {
+        long processingStartedAt = metrics.startTimer();
+        try {
+            return chargeAndRecord(amount);
+        } finally {
+            metrics.stopTimer(PROCESS_PAYMENT_LATENCY, processingStartedAt);
+        }
+    }
+
+    private Outcome chargeAndRecord(Money amount) {
         // Anropar extern betaltjänst direkt med statisk API-nyckel
-        PaymentApiResponse response = this.paymentApi.charge(API_KEY, amount);
+        long startedAt = metrics.startTimer();
+        PaymentApiResponse response = this.paymentApi.charge(API_KEY, amount.toDouble());
+        metrics.stopTimer(CHARGE, startedAt);
 
-        // Skriver till databas direkt
-        if (response.success()) {
-            this.databaseConnection
-                    .executeUpdate("INSERT INTO payments (amount, status) VALUES (" + amount + ", 'SUCCESS')");
+        if (!response.success()) {
+            metrics.increment(PAYMENT_DECLINED);
+            return new Outcome(false, CompletableFuture.completedFuture(false));
         }
+        metrics.increment(PAYMENT_SUCCEEDED);
 
-        // Skickar e-post direkt
-        if (response.success()) {
-            emailService.sendPaymentConfirmation("user@example.com", amount);
+        // Bekräftelsen skickas först när betalningen finns i databasen
+        CompletableFuture<Void> queued = writeBuffer != null ? writeBuffer.tryAdd(amount, STATUS_SUCCESS) : null;
+        if (queued != null) {
+            Executor executor = confirmationExecutor != null ? confirmationExecutor : DefaultConfirmationExecutor.EXECUTOR;
+            return new Outcome(true, queued.thenApplyAsync(ignored -> sendConfirmation(amount), executor));
         }
 
-        return response.success();
+        // Utan buffert, eller när den redan har stängts, skrivs raden direkt så att debiteringen aldrig saknar rad
+        long updateStartedAt = metrics.startTimer();
+        this.databaseConnection.executeUpdate(INSERT_PAYMENT, amount.toBigDecimal(), STATUS_SUCCESS);
+        metrics.stopTimer(EXECUTE_UPDATE, updateStartedAt);
+        return new Outcome(true, CompletableFuture.completedFuture(sendConfirmation(amount)));
+    }
+
+    private boolean sendConfirmation(Money amount) {
+        long startedAt = metrics.startTimer();
+        emailService.sendPaymentConfirmation("user@example.com", amount.toDouble());
+        metrics.stopTimer(SEND_CONFIRMATION, startedAt);
+        return true;
+    }
+
+    public void setWriteBuffer(PaymentWriteBuffer writeBuffer) {
+        this.writeBuffer = writeBuffer;
+        if (writeBuffer != null) {
+            writeBuffer.setMetricsSink(metrics);
+        }
+    }
+
+    public void setConfirmationExecutor(Executor confirmationExecutor) {
+        this.confirmationExecutor = confirmationExecutor;
+    }
+
+    public void setMetricsSink(MetricsSink metrics) {
+        this.metrics = metrics;
+        if (writeBuffer != null) {
+            writeBuffer.setMetricsSink(metrics);
+        }
     }
 }
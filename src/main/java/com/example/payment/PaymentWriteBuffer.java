@@ -0,0 +1,171 @@
+package com.example.payment;
+
+import com.example.metrics.MetricsSink;
+import com.example.money.Money;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class PaymentWriteBuffer implements AutoCloseable {
+
+    private record PendingWrite(Object[] parameters, CompletableFuture<Void> acknowledgement) {
+    }
+
+    private static final String EXECUTE_BATCH = "dependency.DatabaseConnection.executeBatch";
+    private static final String EXECUTE_UPDATE = "dependency.DatabaseConnection.executeUpdate";
+    private static final String BATCH_FAILED = "payment.writeBuffer.batchFailure";
+    private static final String ROW_FAILED = "payment.writeBuffer.rowFailure";
+
+    private final DatabaseConnection databaseConnection;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("payment-write-buffer").daemon().factory());
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder writtenRows = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder failedRows = new LongAdder();
+    private volatile MetricsSink metrics = MetricsSink.NOOP;
+    private List<PendingWrite> pending;
+    private boolean closed;
+
+    public PaymentWriteBuffer(DatabaseConnection databaseConnection, int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batchstorleken måste vara minst 1");
+        }
+        this.databaseConnection = databaseConnection;
+        this.maxBatchSize = maxBatchSize;
+        this.pending = new ArrayList<>(maxBatchSize);
+    }
+
+    public void start(Duration maxDelay) {
+        if (maxDelay == null || maxDelay.isNegative() || maxDelay.isZero()) {
+            throw new IllegalArgumentException("Intervallet måste vara positivt");
+        }
+        long nanos = maxDelay.toNanos();
+        scheduler.scheduleWithFixedDelay(this::flush, nanos, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public CompletableFuture<Void> add(Money amount, String status) {
+        CompletableFuture<Void> acknowledgement = tryAdd(amount, status);
+        if (acknowledgement == null) {
+            throw new IllegalStateException("Skrivbufferten är stängd");
+        }
+        return acknowledgement;
+    }
+
+    // Ger null när bufferten är stängd, så att anroparen kan skriva själv i stället för att tappa raden
+    public CompletableFuture<Void> tryAdd(Money amount, String status) {
+        PendingWrite write = new PendingWrite(new Object[]{amount.toBigDecimal(), status}, new CompletableFuture<>());
+        List<PendingWrite> full = null;
+        synchronized (this) {
+            if (closed) {
+                return null;
+            }
+            pending.add(write);
+            if (pending.size() >= maxBatchSize) {
+                full = takePending();
+            }
+        }
+        // En full batch skrivs av den som fyllde den, vilket även bromsar inflödet när databasen är långsam
+        if (full != null) {
+            write(full);
+        }
+        return write.acknowledgement();
+    }
+
+    public void flush() {
+        List<PendingWrite> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = takePending();
+        }
+        write(batch);
+    }
+
+    private List<PendingWrite> takePending() {
+        List<PendingWrite> batch = pending;
+        pending = new ArrayList<>(maxBatchSize);
+        return batch;
+    }
+
+    private void write(List<PendingWrite> batch) {
+        List<Object[]> parameterSets = new ArrayList<>(batch.size());
+        for (PendingWrite write : batch) {
+            parameterSets.add(write.parameters());
+        }
+        long startedAt = metrics.startTimer();
+        try {
+            databaseConnection.executeBatch(PaymentProcessor.INSERT_PAYMENT, parameterSets);
+        } catch (RuntimeException e) {
+            // Debiteringarna är redan gjorda, så raderna får inte tappas: de skrivs en och en i stället
+            failedBatches.increment();
+            metrics.increment(BATCH_FAILED);
+            batch.forEach(this::writeRow);
+            return;
+        } finally {
+            metrics.stopTimer(EXECUTE_BATCH, startedAt);
+        }
+        batches.increment();
+        writtenRows.add(batch.size());
+        batch.forEach(write -> write.acknowledgement().complete(null));
+    }
+
+    private void writeRow(PendingWrite write) {
+        long startedAt = metrics.startTimer();
+        try {
+            databaseConnection.executeUpdate(PaymentProcessor.INSERT_PAYMENT, write.parameters());
+        } catch (RuntimeException e) {
+            // Anroparen får felet via sin bekräftelse, schemat fortsätter med nästa batch
+            failedRows.increment();
+            metrics.increment(ROW_FAILED);
+            write.acknowledgement().completeExceptionally(e);
+            return;
+        } finally {
+            metrics.stopTimer(EXECUTE_UPDATE, startedAt);
+        }
+        writtenRows.increment();
+        write.acknowledgement().complete(null);
+    }
+
+    public void setMetricsSink(MetricsSink metrics) {
+        this.metrics = metrics;
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public long getWrittenCount() {
+        return writtenRows.sum();
+    }
+
+    public long getFailedBatchCount() {
+        return failedBatches.sum();
+    }
+
+    public long getFailedRowCount() {
+        return failedRows.sum();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        synchronized (this) {
+            closed = true;
+        }
+        scheduler.shutdown();
+        scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        flush();
+    }
+}
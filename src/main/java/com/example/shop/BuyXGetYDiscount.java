@@ -0,0 +1,26 @@
+package com.example.shop;
+
+import com.example.money.Money;
+
+import java.util.Set;
+
+public record BuyXGetYDiscount(String itemId, int buy, int free) implements LineDiscount {
+
+    public BuyXGetYDiscount {
+        if (buy < 1 || free < 1) {
+            throw new IllegalArgumentException("Antal att köpa och antal gratis måste vara minst 1");
+        }
+    }
+
+    @Override
+    public Set<String> itemIds() {
+        return Set.of(itemId);
+    }
+
+    @Override
+    public Money discountFor(Money unitPrice, int quantity) {
+        // Varje fullständig grupp om buy + free ger free varor gratis
+        long freeUnits = (long) (quantity / (buy + free)) * free;
+        return unitPrice.times(freeUnits);
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.shop;
+
+import com.example.money.Money;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+public class ConcurrentShoppingCart {
+
+    public record Snapshot(List<Item> items, Money subtotal, Money total) {
+    }
+
+    private static final int REMOVED = -1;
+
+    private record Line(String id, Money unitPrice, long sequence, AtomicInteger quantity) {
+    }
+
+    private record LineState(Line line, int quantity) {
+    }
+
+    private final ConcurrentHashMap<String, Line> lines = new ConcurrentHashMap<>();
+    private final Currency currency;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final LongAdder subtotal = new LongAdder();
+    // Omvänd användning: ändringar delar läslåset och uppdaterar raderna med CAS,
+    // medan ögonblicksbilder tar skrivlåset och därmed ser ett läge utan halvfärdiga ändringar
+    private final StampedLock snapshotLock = new StampedLock();
+    private volatile Discount discount;
+
+    public ConcurrentShoppingCart() {
+        this(Money.SEK);
+    }
+
+    public ConcurrentShoppingCart(Currency currency) {
+        this.currency = currency;
+    }
+
+    public void addItem(Item newItem) {
+        if (newItem.getQuantity() <= 0) {
+            return;
+        }
+        if (!newItem.getUnitPrice().currency().equals(currency)) {
+            throw new IllegalArgumentException("Varans valuta matchar inte kundvagnens: " + newItem.getUnitPrice().currency());
+        }
+        long stamp = snapshotLock.readLock();
+        try {
+            while (true) {
+                Line line = lines.computeIfAbsent(newItem.getId(), id -> new Line(id, newItem.getUnitPrice(),
+                        nextSequence.getAndIncrement(), new AtomicInteger()));
+                int current = line.quantity().get();
+                if (current == REMOVED) {
+                    // Raden togs bort under tiden, så en ny rad får skapas i stället
+                    lines.remove(line.id(), line);
+                    continue;
+                }
+                int updated = Math.addExact(current, newItem.getQuantity());
+                long difference = lineTotal(line, newItem.getQuantity());
+                if (line.quantity().compareAndSet(current, updated)) {
+                    subtotal.add(difference);
+                    return;
+                }
+            }
+        } finally {
+            snapshotLock.unlockRead(stamp);
+        }
+    }
+
+    public void removeItem(Item item) {
+        removeItem(item.getId());
+    }
+
+    public void removeItem(String itemId) {
+        long stamp = snapshotLock.readLock();
+        try {
+            Line line = lines.get(itemId);
+            if (line != null) {
+                remove(line);
+            }
+        } finally {
+            snapshotLock.unlockRead(stamp);
+        }
+    }
+
+    public void updateQuantity(String itemId, int quantity) {
+        long stamp = snapshotLock.readLock();
+        try {
+            Line line = lines.get(itemId);
+            if (line == null) {
+                throw new IllegalArgumentException("Varan finns inte i kundvagnen");
+            }
+            if (quantity <= 0) {
+                remove(line);
+                return;
+            }
+            while (true) {
+                int current = line.quantity().get();
+                if (current == REMOVED) {
+                    throw new IllegalArgumentException("Varan finns inte i kundvagnen");
+                }
+                long difference = lineTotal(line, (long) quantity - current);
+                if (line.quantity().compareAndSet(current, quantity)) {
+                    subtotal.add(difference);
+                    return;
+                }
+            }
+        } finally {
+            snapshotLock.unlockRead(stamp);
+        }
+    }
+
+    public void setDiscount(Discount discount) {
+        this.discount = discount;
+    }
+
+    public Snapshot snapshot() {
+        List<LineState> current = new ArrayList<>(lines.size());
+        long subtotalMinor;
+        long stamp = snapshotLock.writeLock();
+        try {
+            // Under låset kopieras bara antal och delsumma, sorteringen görs när ändringarna har släppts fram igen
+            for (Line line : lines.values()) {
+                current.add(new LineState(line, line.quantity().get()));
+            }
+            subtotalMinor = subtotal.sum();
+        } finally {
+            snapshotLock.unlockWrite(stamp);
+        }
+
+        current.sort(Comparator.comparingLong(state -> state.line().sequence()));
+        List<Item> items = new ArrayList<>(current.size());
+        for (LineState state : current) {
+            items.add(new Item(state.line().id(), state.line().unitPrice(), state.quantity()));
+        }
+        Money subtotalMoney = Money.ofMinor(subtotalMinor, currency);
+        return new Snapshot(List.copyOf(items), subtotalMoney, applyDiscount(subtotalMoney));
+    }
+
+    public List<Item> getItems() {
+        return snapshot().items();
+    }
+
+    public Money getTotal() {
+        // Varje ändring lägger sin skillnad i delsumman i ett enda steg, så summan kan läsas optimistiskt utan lås.
+        // En stämpel från snapshotLock skulle inte märka ändringarna, eftersom de delar läslåset.
+        return applyDiscount(Money.ofMinor(subtotal.sum(), currency));
+    }
+
+    public double getTotalPrice() {
+        return getTotal().toDouble();
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    private Money applyDiscount(Money total) {
+        Discount current = discount;
+        if (current != null && current.getPercentage() <= 100 && current.getPercentage() > 0) {
+            return current.applyDiscount(total);
+        }
+        return total;
+    }
+
+    private void remove(Line line) {
+        int removed = line.quantity().getAndSet(REMOVED);
+        if (removed != REMOVED) {
+            lines.remove(line.id(), line);
+            subtotal.add(-lineTotal(line, removed));
+        }
+    }
+
+    private static long lineTotal(Line line, long quantity) {
+        return Math.multiplyExact(line.unitPrice().minorUnits(), quantity);
+    }
+}
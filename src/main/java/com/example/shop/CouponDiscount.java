@@ -0,0 +1,24 @@
+package com.example.shop;
+
+import com.example.money.Money;
+
+import java.math.RoundingMode;
+
+public record CouponDiscount(String code, Money amount) implements DiscountProvider {
+
+    public CouponDiscount {
+        if (code == null || amount == null || amount.isNegative()) {
+            throw new IllegalArgumentException("Kupongen kräver en kod och ett belopp som inte är negativt");
+        }
+    }
+
+    @Override
+    public double applyDiscount(double totalPrice) {
+        return applyDiscount(Money.of(totalPrice, amount.currency(), RoundingMode.HALF_EVEN)).toDouble();
+    }
+
+    @Override
+    public Money applyDiscount(Money totalPrice) {
+        return totalPrice.minus(amount).max(Money.zero(totalPrice.currency()));
+    }
+}
@@ -1,18 +1,39 @@
 package com.example.shop;
 
-public class Discount {
+import com.example.money.Money;
+
+import java.math.RoundingMode;
+
+public class Discount implements DiscountProvider {
     private int percentage;
+    private RoundingMode rounding;
 
     public Discount(int percentage) {
+        this(percentage, RoundingMode.HALF_EVEN);
+    }
+
+    public Discount(int percentage, RoundingMode rounding) {
         this.percentage = percentage;
+        this.rounding = rounding;
     }
 
+    @Override
     public double applyDiscount(double totalPrice){
         double result = totalPrice - (totalPrice * ((double) this.percentage /100));
         return Math.max(0, result);
     }
 
+    @Override
+    public Money applyDiscount(Money totalPrice){
+        Money result = totalPrice.minus(totalPrice.percentage(percentage, rounding));
+        return result.max(Money.zero(totalPrice.currency()));
+    }
+
     public int getPercentage() {
         return percentage;
     }
+
+    public RoundingMode getRounding() {
+        return rounding;
+    }
 }
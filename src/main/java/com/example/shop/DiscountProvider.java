@@ -1,5 +1,13 @@
 package com.example.shop;
 
+import com.example.money.Money;
+
+import java.math.RoundingMode;
+
 public interface DiscountProvider {
     double applyDiscount(double totalPrice);
+
+    default Money applyDiscount(Money totalPrice) {
+        return Money.of(applyDiscount(totalPrice.toDouble()), totalPrice.currency(), RoundingMode.HALF_EVEN);
+    }
 }
@@ -1,17 +1,28 @@
 package com.example.shop;
 
+import com.example.money.Money;
+
+import java.math.RoundingMode;
+
 public class Item {
 
     private String id;
-    private double price;
+    private Money price;
     private int quantity;
 
     public Item(String id, double price, int quantity) {
+        this(id, Money.of(price, Money.SEK, RoundingMode.HALF_EVEN), quantity);
+    }
+
+    public Item(String id, Money price, int quantity) {
         this.id = id;
         this.price = price;
         this.quantity = quantity;
     }
     public double getPrice() {
+        return price.toDouble();
+    }
+    public Money getUnitPrice() {
         return price;
     }
     public int getQuantity() {
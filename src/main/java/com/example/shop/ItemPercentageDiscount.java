@@ -0,0 +1,21 @@
+package com.example.shop;
+
+import com.example.money.Money;
+
+import java.math.RoundingMode;
+import java.util.Set;
+
+public record ItemPercentageDiscount(Set<String> itemIds, int percentage, RoundingMode rounding) implements LineDiscount {
+
+    public ItemPercentageDiscount {
+        if (percentage < 0 || percentage > 100) {
+            throw new IllegalArgumentException("Rabatten måste vara mellan 0 och 100 procent");
+        }
+        itemIds = Set.copyOf(itemIds);
+    }
+
+    @Override
+    public Money discountFor(Money unitPrice, int quantity) {
+        return unitPrice.times(quantity).percentage(percentage, rounding);
+    }
+}
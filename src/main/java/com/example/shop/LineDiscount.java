@@ -0,0 +1,14 @@
+package com.example.shop;
+
+import com.example.money.Money;
+
+import java.util.Set;
+
+public interface LineDiscount {
+
+    // Tom mängd betyder att regeln gäller alla varor
+    Set<String> itemIds();
+
+    // Måste vara en ren funktion av raden, kundvagnen räknar om gamla rabatter i stället för att spara dem
+    Money discountFor(Money unitPrice, int quantity);
+}
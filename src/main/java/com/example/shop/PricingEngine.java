@@ -0,0 +1,81 @@
+package com.example.shop;
+
+import com.example.money.Money;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public final class PricingEngine {
+
+    private static final LineDiscount[] NO_RULES = new LineDiscount[0];
+
+    private final Map<String, LineDiscount[]> rulesByItem;
+    private final LineDiscount[] rulesForAllItems;
+    private final DiscountProvider[] cartRules;
+
+    private PricingEngine(Map<String, LineDiscount[]> rulesByItem, LineDiscount[] rulesForAllItems,
+                          DiscountProvider[] cartRules) {
+        this.rulesByItem = rulesByItem;
+        this.rulesForAllItems = rulesForAllItems;
+        this.cartRules = cartRules;
+    }
+
+    public static PricingEngine compile(List<LineDiscount> lineRules, List<DiscountProvider> cartRules) {
+        Set<String> targetedItems = new LinkedHashSet<>();
+        for (LineDiscount rule : lineRules) {
+            targetedItems.addAll(rule.itemIds());
+        }
+
+        // Varje vara får en färdig lista med sina regler i ursprunglig ordning, så att prissättningen bara slår upp en gång
+        Map<String, LineDiscount[]> rulesByItem = new HashMap<>();
+        for (String itemId : targetedItems) {
+            List<LineDiscount> rules = new ArrayList<>();
+            for (LineDiscount rule : lineRules) {
+                if (rule.itemIds().isEmpty() || rule.itemIds().contains(itemId)) {
+                    rules.add(rule);
+                }
+            }
+            rulesByItem.put(itemId, rules.toArray(NO_RULES));
+        }
+        LineDiscount[] rulesForAllItems = lineRules.stream()
+                .filter(rule -> rule.itemIds().isEmpty())
+                .toArray(LineDiscount[]::new);
+
+        return new PricingEngine(Map.copyOf(rulesByItem), rulesForAllItems,
+                cartRules.toArray(new DiscountProvider[0]));
+    }
+
+    public Money lineDiscount(String itemId, Money unitPrice, int quantity) {
+        LineDiscount[] rules = rulesByItem.getOrDefault(itemId, rulesForAllItems);
+        Money lineTotal = unitPrice.times(quantity);
+        Money discount = Money.zero(unitPrice.currency());
+        for (LineDiscount rule : rules) {
+            discount = discount.plus(rule.discountFor(unitPrice, quantity));
+        }
+        // Staplade radrabatter kan aldrig göra raden billigare än gratis
+        return discount.compareTo(lineTotal) > 0 ? lineTotal : discount;
+    }
+
+    public Money applyCartRules(Money subtotal) {
+        Money total = subtotal;
+        for (DiscountProvider rule : cartRules) {
+            total = rule.applyDiscount(total);
+        }
+        return total;
+    }
+
+    public Money price(Collection<Item> lines, Currency currency) {
+        Money subtotal = Money.zero(currency);
+        for (Item line : lines) {
+            Money lineTotal = line.getUnitPrice().times(line.getQuantity());
+            subtotal = subtotal.plus(lineTotal.minus(lineDiscount(line.getId(), line.getUnitPrice(), line.getQuantity())));
+        }
+        return applyCartRules(subtotal);
+    }
+}
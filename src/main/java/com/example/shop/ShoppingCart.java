@@ -1,53 +1,159 @@
 package com.example.shop;
 
+import com.example.money.Money;
+
 import java.util.ArrayList;
+import java.util.Currency;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ShoppingCart {
 
-    private List<Item> items =  new ArrayList<>();
+    // Raderna lagras som egna kopior så att ingen utifrån kan ändra antal förbi delsumman
+    private final Map<String, Item> items = new LinkedHashMap<>();
+    private final Currency currency;
+    // Delsumman hålls i minsta valutaenhet så att den förblir exakt oavsett antal rader
+    private long subtotal;
+    private long lineDiscountTotal;
     private Discount discount;
+    private PricingEngine pricingEngine;
+    // Totalen räknas bara om när kundvagnen har ändrats sedan förra uträkningen
+    private long version;
+    private long pricedVersion = -1;
+    private Money pricedTotal;
+
+    public ShoppingCart() {
+        this(Money.SEK);
+    }
+
+    public ShoppingCart(Currency currency) {
+        this.currency = currency;
+    }
 
     public void addItem(Item newItem){
 
         if ( newItem.getQuantity() > 0) {
-            for (Item existingItem : items) {
-                if (existingItem.getId().equals(newItem.getId())) {
-                    int updatedQuantity = existingItem.getQuantity() + newItem.getQuantity();
-                    existingItem.setQuantity(updatedQuantity);
-
-                    return;
-                }
+            checkCurrency(newItem);
+            Item existingItem = items.get(newItem.getId());
+            if (existingItem != null) {
+                int updatedQuantity = Math.addExact(existingItem.getQuantity(), newItem.getQuantity());
+                setLineQuantity(existingItem, updatedQuantity);
+                return;
             }
-            this.items.add(newItem);
+            long lineDiscount = lineDiscount(newItem.getId(), newItem.getUnitPrice(), newItem.getQuantity());
+            subtotal = Math.addExact(subtotal, lineTotal(newItem.getUnitPrice(), newItem.getQuantity()));
+            lineDiscountTotal += lineDiscount;
+            version++;
+            items.put(newItem.getId(), new Item(newItem.getId(), newItem.getUnitPrice(), newItem.getQuantity()));
         }
     }
 
     public List<Item> getItems() {
-        return items;
+        List<Item> copies = new ArrayList<>(items.size());
+        for (Item item : items.values()) {
+            copies.add(new Item(item.getId(), item.getUnitPrice(), item.getQuantity()));
+        }
+        return copies;
     }
 
     public void removeItem(Item item){
-        this.items.remove(item);
+        removeItem(item.getId());
+    }
+
+    public void removeItem(String itemId){
+        Item removed = items.remove(itemId);
+        if (removed != null) {
+            subtotal -= lineTotal(removed.getUnitPrice(), removed.getQuantity());
+            lineDiscountTotal -= lineDiscount(removed.getId(), removed.getUnitPrice(), removed.getQuantity());
+            version++;
+        }
+    }
+
+    public void updateQuantity(String itemId, int quantity){
+        Item existingItem = items.get(itemId);
+        if (existingItem == null) {
+            throw new IllegalArgumentException("Varan finns inte i kundvagnen");
+        }
+        if (quantity <= 0) {
+            removeItem(itemId);
+            return;
+        }
+        setLineQuantity(existingItem, quantity);
     }
 
     public void setDiscount(Discount discount) {
         this.discount = discount;
+        version++;
     }
 
-    public double getTotalPrice(){
-        double totalPrice = items.stream()
-                .mapToDouble(item -> item.getPrice() * item.getQuantity())
-                .sum();
+    public void setPricingEngine(PricingEngine pricingEngine) {
+        this.pricingEngine = pricingEngine;
+        long total = 0;
+        for (Item item : items.values()) {
+            total += lineDiscount(item.getId(), item.getUnitPrice(), item.getQuantity());
+        }
+        lineDiscountTotal = total;
+        version++;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public Money getSubtotal() {
+        return Money.ofMinor(subtotal, currency);
+    }
+
+    public Money getTotal() {
+        if (pricedVersion == version) {
+            return pricedTotal;
+        }
+        Money total = Money.ofMinor(subtotal - lineDiscountTotal, currency);
+        if (pricingEngine != null) {
+            total = pricingEngine.applyCartRules(total);
+        }
 
         if (discount != null && discount.getPercentage() <= 100 && discount.getPercentage() > 0) {
-            return discount.applyDiscount(totalPrice);
+            total = discount.applyDiscount(total);
         }
 
-        return totalPrice;
+        pricedTotal = total;
+        pricedVersion = version;
+        return total;
+    }
 
+    public double getTotalPrice(){
+        return getTotal().toDouble();
+    }
+
+    private void setLineQuantity(Item item, int quantity) {
+        long difference = Math.multiplyExact(item.getUnitPrice().minorUnits(), (long) quantity - item.getQuantity());
+        // Bara den ändrade radens regler räknas om
+        long discountDifference = lineDiscount(item.getId(), item.getUnitPrice(), quantity)
+                - lineDiscount(item.getId(), item.getUnitPrice(), item.getQuantity());
+        subtotal = Math.addExact(subtotal, difference);
+        lineDiscountTotal += discountDifference;
+        item.setQuantity(quantity);
+        version++;
+    }
+
+    private long lineDiscount(String itemId, Money unitPrice, int quantity) {
+        return pricingEngine == null ? 0 : pricingEngine.lineDiscount(itemId, unitPrice, quantity).minorUnits();
     }
 
+    private static long lineTotal(Money unitPrice, int quantity) {
+        return Math.multiplyExact(unitPrice.minorUnits(), (long) quantity);
+    }
 
+    private void checkCurrency(Item item) {
+        if (!item.getUnitPrice().currency().equals(currency)) {
+            throw new IllegalArgumentException("Varans valuta matchar inte kundvagnens: " + item.getUnitPrice().currency());
+        }
+    }
 
 }
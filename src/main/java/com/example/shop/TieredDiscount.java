@@ -0,0 +1,43 @@
+package com.example.shop;
+
+import com.example.money.Money;
+
+import java.math.RoundingMode;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.List;
+
+public record TieredDiscount(List<Tier> tiers, RoundingMode rounding) implements DiscountProvider {
+
+    public record Tier(Money threshold, int percentage) {
+        public Tier {
+            if (percentage < 0 || percentage > 100) {
+                throw new IllegalArgumentException("Rabatten måste vara mellan 0 och 100 procent");
+            }
+        }
+    }
+
+    public TieredDiscount {
+        if (tiers.isEmpty()) {
+            throw new IllegalArgumentException("Minst en nivå krävs");
+        }
+        // Högsta tröskeln först så att första träffen är den som gäller
+        tiers = tiers.stream().sorted(Comparator.comparing(Tier::threshold).reversed()).toList();
+    }
+
+    @Override
+    public double applyDiscount(double totalPrice) {
+        Currency currency = tiers.getFirst().threshold().currency();
+        return applyDiscount(Money.of(totalPrice, currency, rounding)).toDouble();
+    }
+
+    @Override
+    public Money applyDiscount(Money totalPrice) {
+        for (Tier tier : tiers) {
+            if (totalPrice.compareTo(tier.threshold()) >= 0) {
+                return totalPrice.minus(totalPrice.percentage(tier.percentage(), rounding));
+            }
+        }
+        return totalPrice;
+    }
+}
@@ -0,0 +1,157 @@
+package com.example;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncNotificationServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+    @Mock
+    NotificationService delegate;
+
+    @Test
+    @DisplayName("Should return to the caller before a slow notification has been delivered")
+    void doesNotWaitForSlowDelivery() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(delegate).sendBookingConfirmation(any());
+        Booking booking = new Booking("1", "100", START, START.plusHours(1));
+
+        try (AsyncNotificationService service = new AsyncNotificationService(delegate)) {
+            service.sendBookingConfirmation(booking);
+
+            assertThat(service.getDeliveredCount()).isZero();
+            release.countDown();
+            await().untilAsserted(() -> assertThat(service.getDeliveredCount()).isEqualTo(1));
+        }
+        verify(delegate).sendBookingConfirmation(booking);
+    }
+
+    @Test
+    @DisplayName("Should retry a failed notification with backoff until it is delivered")
+    void retriesFailedNotification() throws Exception {
+        Booking booking = new Booking("1", "100", START, START.plusHours(1));
+        doThrow(new NotificationException("Tillfälligt fel"))
+                .doNothing()
+                .when(delegate).sendCancellationConfirmation(booking);
+
+        try (AsyncNotificationService service = new AsyncNotificationService(delegate, 10, 10, 3,
+                Duration.ofMillis(10), AsyncNotificationService.OverflowPolicy.BLOCK)) {
+            service.sendCancellationConfirmation(booking);
+
+            await().untilAsserted(() -> assertThat(service.getDeliveredCount()).isEqualTo(1));
+            assertThat(service.getRetryCount()).isEqualTo(1);
+            assertThat(service.getFailedCount()).isZero();
+        }
+        verify(delegate, times(2)).sendCancellationConfirmation(booking);
+    }
+
+    @Test
+    @DisplayName("Should keep delivering new notifications while a failed one waits for its retry")
+    void retryDoesNotHoldBackOtherNotifications() throws Exception {
+        Booking failing = new Booking("1", "100", START, START.plusHours(1));
+        Booking next = new Booking("2", "100", START, START.plusHours(1));
+        doThrow(new NotificationException("Tillfälligt fel"))
+                .doNothing()
+                .when(delegate).sendBookingConfirmation(failing);
+
+        try (AsyncNotificationService service = new AsyncNotificationService(delegate, 10, 1, 2,
+                Duration.ofSeconds(1), AsyncNotificationService.OverflowPolicy.BLOCK)) {
+            service.sendBookingConfirmation(failing);
+            await().untilAsserted(() -> assertThat(service.getRetryCount()).isEqualTo(1));
+            service.sendBookingConfirmation(next);
+
+            await().atMost(Duration.ofMillis(900))
+                    .untilAsserted(() -> assertThat(service.getDeliveredCount()).isEqualTo(1));
+            verify(delegate).sendBookingConfirmation(next);
+        }
+        verify(delegate, times(2)).sendBookingConfirmation(failing);
+    }
+
+    @Test
+    @DisplayName("Should reject notifications once the service has been closed")
+    void rejectsAfterClose() throws Exception {
+        AsyncNotificationService service = new AsyncNotificationService(delegate);
+        service.close();
+
+        var exception = assertThrows(NotificationException.class,
+                () -> service.sendBookingConfirmation(new Booking("1", "100", START, START.plusHours(1))));
+        assertThat(exception).hasMessage("Notifieringstjänsten är stängd");
+    }
+
+    @Test
+    @DisplayName("Should count a notification as failed when every attempt fails")
+    void countsFailureAfterLastAttempt() throws Exception {
+        Booking booking = new Booking("1", "100", START, START.plusHours(1));
+        doThrow(new NotificationException("Nere")).when(delegate).sendBookingConfirmation(booking);
+
+        try (AsyncNotificationService service = new AsyncNotificationService(delegate, 10, 10, 2,
+                Duration.ofMillis(10), AsyncNotificationService.OverflowPolicy.BLOCK)) {
+            service.sendBookingConfirmation(booking);
+
+            await().untilAsserted(() -> assertThat(service.getFailedCount()).isEqualTo(1));
+        }
+    }
+
+    @Test
+    @DisplayName("Should drop new notifications when the queue is full and the policy is DROP_NEWEST")
+    void dropsNewestWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return null;
+        }).when(delegate).sendBookingConfirmation(any());
+
+        try (AsyncNotificationService service = new AsyncNotificationService(delegate, 1, 1, 1,
+                Duration.ofMillis(10), AsyncNotificationService.OverflowPolicy.DROP_NEWEST)) {
+            service.sendBookingConfirmation(new Booking("1", "100", START, START.plusHours(1)));
+            started.await();
+            service.sendBookingConfirmation(new Booking("2", "100", START, START.plusHours(1)));
+            service.sendBookingConfirmation(new Booking("3", "100", START, START.plusHours(1)));
+
+            assertThat(service.getQueueDepth()).isEqualTo(1);
+            assertThat(service.getDroppedCount()).isEqualTo(1);
+            release.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should count notifications waiting for a retry against the queue capacity")
+    void retriesTakeUpQueueCapacity() throws Exception {
+        doThrow(new NotificationException("Nere")).when(delegate).sendBookingConfirmation(any());
+
+        try (AsyncNotificationService service = new AsyncNotificationService(delegate, 2, 2, 2,
+                Duration.ofMillis(500), AsyncNotificationService.OverflowPolicy.DROP_NEWEST)) {
+            service.sendBookingConfirmation(new Booking("1", "100", START, START.plusHours(1)));
+            service.sendBookingConfirmation(new Booking("2", "100", START, START.plusHours(1)));
+            await().untilAsserted(() -> assertThat(service.getRetryCount()).isEqualTo(2));
+
+            service.sendBookingConfirmation(new Booking("3", "100", START, START.plusHours(1)));
+
+            assertThat(service.getQueueDepth()).isZero();
+            assertThat(service.getDroppedCount()).isEqualTo(1);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AvailabilityIndexTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+    @Test
+    @DisplayName("Should only return rooms without bookings in the requested period")
+    void findAvailableRooms() {
+        Room room1 = new Room("101", "Room1");
+        Room room2 = new Room("102", "Room2");
+        room1.addBooking(new Booking("1", "101", START, START.plusHours(2)));
+        AvailabilityIndex index = new AvailabilityIndex(Duration.ofMinutes(15));
+        index.addRooms(List.of(room1, room2));
+
+        assertThat(index.findAvailable(START.plusHours(1), START.plusHours(3))).containsExactly(room2);
+        assertThat(index.findAvailable(START.plusHours(3), START.plusHours(4))).containsExactly(room1, room2);
+    }
+
+    @Test
+    @DisplayName("Should answer exactly when bookings and the query only share part of a slot")
+    void partialSlotsAreCheckedExactly() {
+        Room room = new Room("101", "Room1");
+        room.addBooking(new Booking("1", "101", START, START.plusMinutes(5)));
+        AvailabilityIndex index = new AvailabilityIndex(Duration.ofMinutes(15));
+        index.addRoom(room);
+
+        assertThat(index.findAvailable(START.plusMinutes(6), START.plusMinutes(14))).containsExactly(room);
+        assertThat(index.findAvailable(START.plusMinutes(5), START.plusMinutes(14))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should check recurring bookings within the queried window instead of expanding every occurrence")
+    void recurringBookingsAreCheckedLazily() {
+        Room room = new Room("101", "Room1");
+        room.addRecurringBooking(new RecurringBooking("r1", "101", START, START.plusHours(1),
+                RecurrenceRule.times(RecurrenceRule.Frequency.DAILY, 1, 1_000_000)));
+        AvailabilityIndex index = new AvailabilityIndex(Duration.ofMinutes(15));
+        index.addRoom(room);
+
+        assertThat(index.findAvailable(START.plusYears(100).plusMinutes(30), START.plusYears(100).plusHours(2))).isEmpty();
+        assertThat(index.findAvailable(START.plusYears(100).plusHours(2), START.plusYears(100).plusHours(3)))
+                .containsExactly(room);
+
+        room.removeRecurringBooking("r1");
+        index.onRecurringBookingsChanged(room);
+
+        assertThat(index.findAvailable(START.plusMinutes(30), START.plusHours(2))).containsExactly(room);
+    }
+
+    @Test
+    @DisplayName("Should free a cancelled booking's slot even when a recurring occurrence shares it")
+    void cancellationNextToRecurringOccurrence() {
+        Room room = new Room("101", "Room1");
+        room.addRecurringBooking(new RecurringBooking("r1", "101", START, START.plusMinutes(5),
+                RecurrenceRule.times(RecurrenceRule.Frequency.DAILY, 1, 3)));
+        Booking booking = new Booking("1", "101", START.plusMinutes(10), START.plusMinutes(14));
+        AvailabilityIndex index = new AvailabilityIndex(Duration.ofMinutes(15));
+        index.addRoom(room);
+        room.addBooking(booking);
+        index.onBooked(room, booking);
+
+        room.removeBooking("1");
+        index.onCancelled(room, booking);
+        room.addOccurrenceException("r1", START);
+        index.onRecurringBookingsChanged(room);
+
+        assertThat(index.findAvailable(START.minusMinutes(15), START.plusMinutes(30))).containsExactly(room);
+    }
+
+    @Test
+    @DisplayName("Should free the slots of a cancelled booking but keep slots still used by other bookings")
+    void cancellationUpdatesIndex() {
+        Room room = new Room("101", "Room1");
+        Booking first = new Booking("1", "101", START, START.plusMinutes(20));
+        Booking second = new Booking("2", "101", START.plusMinutes(25), START.plusMinutes(40));
+        AvailabilityIndex index = new AvailabilityIndex(Duration.ofMinutes(15));
+        index.addRoom(room);
+        room.addBooking(first);
+        index.onBooked(room, first);
+        room.addBooking(second);
+        index.onBooked(room, second);
+
+        room.removeBooking("1");
+        index.onCancelled(room, first);
+
+        assertThat(index.findAvailable(START, START.plusMinutes(24))).containsExactly(room);
+        assertThat(index.findAvailable(START.plusMinutes(30), START.plusMinutes(35))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should give the same answer as checking every room for random bookings and queries")
+    void matchesRoomAvailability() {
+        Random random = new Random(42);
+        List<Room> rooms = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Room room = new Room("room-" + i, "Room" + i);
+            for (int b = 0; b < 20; b++) {
+                LocalDateTime startTime = START.plusMinutes(random.nextInt(7 * 24 * 60));
+                room.addBooking(new Booking(i + "-" + b, room.getId(), startTime,
+                        startTime.plusMinutes(1 + random.nextInt(180))));
+            }
+            rooms.add(room);
+        }
+        AvailabilityIndex index = new AvailabilityIndex(Duration.ofMinutes(15));
+        index.addRooms(rooms);
+
+        for (int q = 0; q < 500; q++) {
+            LocalDateTime startTime = START.plusMinutes(random.nextInt(7 * 24 * 60)).plusSeconds(random.nextInt(60));
+            LocalDateTime endTime = startTime.plusMinutes(random.nextInt(240)).plusSeconds(random.nextInt(60));
+            List<Room> expected = rooms.stream()
+                    .filter(room -> room.isAvailable(startTime, endTime))
+                    .toList();
+
+            assertThat(index.findAvailable(startTime, endTime)).containsExactlyElementsOf(expected);
+        }
+    }
+}
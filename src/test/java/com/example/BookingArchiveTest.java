@@ -0,0 +1,101 @@
+package com.example;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookingArchiveTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2020, 1, 1, 8, 0);
+
+    @Test
+    @DisplayName("Should return archived bookings overlapping the window in start time order")
+    void archivedBookingsCanBeQueried() {
+        BookingArchive archive = new BookingArchive();
+        archive.archive("100", List.of(
+                new Booking("2", "100", START.plusDays(1), START.plusDays(1).plusHours(1)),
+                new Booking("1", "100", START, START.plusHours(1))));
+        archive.archive("100", List.of(new Booking("3", "100", START.plusDays(10), START.plusDays(10).plusHours(1))));
+        archive.archive("200", List.of(new Booking("4", "200", START, START.plusHours(1))));
+
+        assertThat(archive.getBookings("100", START, START.plusDays(30)))
+                .extracting(Booking::getId)
+                .containsExactly("1", "2", "3");
+        assertThat(archive.getBookings("100", START.plusHours(12), START.plusDays(2)))
+                .singleElement()
+                .satisfies(booking -> {
+                    assertThat(booking.getId()).isEqualTo("2");
+                    assertThat(booking.getRoomId()).isEqualTo("100");
+                    assertThat(booking.getStartTime()).isEqualTo(START.plusDays(1));
+                    assertThat(booking.getEndTime()).isEqualTo(START.plusDays(1).plusHours(1));
+                });
+        assertThat(archive.getBookings("300", START, START.plusDays(30))).isEmpty();
+        assertThat(archive.getArchivedCount()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should store archived bookings in a few bytes each")
+    void archiveIsCompressed() {
+        BookingArchive archive = new BookingArchive();
+        MonotonicBookingIdGenerator ids = new MonotonicBookingIdGenerator();
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            LocalDateTime startTime = START.plusHours(i);
+            bookings.add(new Booking(ids.nextId(), "100", startTime, startTime.plusMinutes(45)));
+        }
+
+        archive.archive("100", bookings);
+
+        assertThat(archive.getCompressedBytes())
+                .isLessThan(bookings.size() * 16L);
+    }
+
+    @Test
+    @DisplayName("Should restore archived bookings from its file and drop a block cut off by a crash")
+    void restoresArchiveFromFile(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("bookings.archive");
+        try (BookingArchive archive = new BookingArchive(file)) {
+            archive.archive("100", List.of(new Booking("1", "100", START, START.plusHours(1))));
+            archive.archive("200", List.of(new Booking("2", "200", START, START.plusHours(1))));
+        }
+        Files.write(file, new byte[] {0, 3, 'x'}, StandardOpenOption.APPEND);
+
+        try (BookingArchive reopened = new BookingArchive(file)) {
+            assertThat(reopened.isDurable()).isTrue();
+            assertThat(reopened.getArchivedCount()).isEqualTo(2);
+            assertThat(reopened.getBookings("100", START, START.plusDays(1)))
+                    .extracting(Booking::getId)
+                    .containsExactly("1");
+            reopened.archive("100", List.of(new Booking("3", "100", START.plusDays(1), START.plusDays(1).plusHours(1))));
+        }
+
+        try (BookingArchive reopened = new BookingArchive(file)) {
+            assertThat(reopened.getBookings("100", START, START.plusDays(2)))
+                    .extracting(Booking::getId)
+                    .containsExactly("1", "3");
+        }
+    }
+
+    @Test
+    @DisplayName("Should archive bookings outside the range of epoch nanoseconds")
+    void archivesBookingsBeyondEpochNanos() {
+        BookingArchive archive = new BookingArchive();
+        LocalDateTime farFuture = LocalDateTime.of(2300, 1, 1, 8, 0);
+
+        archive.archive("100", List.of(new Booking("1", "100", farFuture, farFuture.plusHours(1))));
+
+        assertThat(archive.getBookings("100", farFuture, farFuture.plusDays(1)))
+                .extracting(Booking::getStartTime)
+                .containsExactly(farFuture);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+
+class BookingArchiverTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+    @Test
+    @DisplayName("Should move bookings that ended before the retention window into the archive")
+    void runOnceArchivesEndedBookings() throws InterruptedException {
+        AtomicReference<LocalDateTime> now = new AtomicReference<>(START);
+        InMemoryRoomRepository repository = new InMemoryRoomRepository();
+        Room room = new Room("100", "Room1");
+        room.addBooking(new Booking("1", "100", START.plusHours(1), START.plusHours(2)));
+        room.addBooking(new Booking("2", "100", START.plusHours(3), START.plusHours(4)));
+        room.addBooking(new Booking("3", "100", START.plusDays(2), START.plusDays(2).plusHours(1)));
+        repository.save(room);
+        BookingSystem bookingSystem = new BookingSystem(now::get, repository,
+                Mockito.mock(NotificationService.class));
+        BookingArchive archive = new BookingArchive();
+
+        try (BookingArchiver archiver = new BookingArchiver(bookingSystem, now::get, archive, Duration.ofDays(1))) {
+            now.set(START.plusDays(1).plusHours(3).plusMinutes(30));
+            int archived = archiver.runOnce();
+
+            assertThat(archived).isEqualTo(1);
+            assertThat(archiver.getLiveCount()).isEqualTo(2);
+            assertThat(archiver.getArchivedCount()).isEqualTo(1);
+            assertThat(archiver.getCompressedBytes()).isPositive();
+            assertThat(repository.findById("100").orElseThrow().hasBooking("1")).isFalse();
+            assertThat(archive.getBookings("100", START, START.plusDays(1)))
+                    .extracting(Booking::getId)
+                    .containsExactly("1");
+        }
+    }
+
+    @Test
+    @DisplayName("Should archive a recurring booking as its occurrences once the whole series has ended")
+    void archivesEndedRecurringSeries() throws InterruptedException {
+        InMemoryRoomRepository repository = new InMemoryRoomRepository();
+        Room room = new Room("100", "Room1");
+        room.addRecurringBooking(new RecurringBooking("ended", "100", START, START.plusHours(1),
+                RecurrenceRule.times(RecurrenceRule.Frequency.DAILY, 1, 3)));
+        room.addRecurringBooking(new RecurringBooking("running", "100", START.plusHours(2), START.plusHours(3),
+                RecurrenceRule.times(RecurrenceRule.Frequency.DAILY, 1, 10)));
+        room.addOccurrenceException("ended", START.plusDays(1));
+        repository.save(room);
+        TimeProvider later = () -> START.plusDays(5);
+        BookingSystem bookingSystem = new BookingSystem(later, repository, Mockito.mock(NotificationService.class));
+        BookingArchive archive = new BookingArchive();
+
+        try (BookingArchiver archiver = new BookingArchiver(bookingSystem, later, archive, Duration.ofDays(1))) {
+            int archived = archiver.runOnce();
+
+            assertThat(archived).isEqualTo(2);
+            Room stored = repository.findById("100").orElseThrow();
+            assertThat(stored.hasRecurringBooking("ended")).isFalse();
+            assertThat(stored.hasRecurringBooking("running")).isTrue();
+            assertThat(archive.getBookings("100", START, START.plusDays(5)))
+                    .extracting(Booking::getStartTime)
+                    .containsExactly(START, START.plusDays(2));
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep archiving on the configured interval")
+    void startSchedulesRuns() throws InterruptedException {
+        InMemoryRoomRepository repository = new InMemoryRoomRepository();
+        Room room = new Room("100", "Room1");
+        room.addBooking(new Booking("1", "100", START, START.plusHours(1)));
+        repository.save(room);
+        TimeProvider later = () -> START.plusDays(2);
+        BookingSystem bookingSystem = new BookingSystem(later, repository, Mockito.mock(NotificationService.class));
+
+        try (BookingArchiver archiver = new BookingArchiver(bookingSystem, later, new BookingArchive(),
+                Duration.ofDays(1))) {
+            archiver.start(Duration.ofMillis(10));
+
+            await().atMost(Duration.ofSeconds(5)).until(() -> archiver.getRunCount() >= 2);
+            assertThat(archiver.getArchivedCount()).isEqualTo(1);
+            assertThat(archiver.getLiveCount()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep the bookings in the room when the archive fails")
+    void keepsBookingsWhenArchivingFails() {
+        InMemoryRoomRepository repository = new InMemoryRoomRepository();
+        Room room = new Room("100", "Room1");
+        room.addBooking(new Booking("1", "100", START, START.plusHours(1)));
+        repository.save(room);
+        BookingSystem bookingSystem = new BookingSystem(() -> START.plusDays(2), repository,
+                Mockito.mock(NotificationService.class));
+        BookingArchive archive = Mockito.mock(BookingArchive.class);
+        Mockito.doThrow(new UncheckedIOException(new IOException("Disken är full")))
+                .when(archive).archive(any(), any());
+
+        assertThrows(UncheckedIOException.class,
+                () -> bookingSystem.archiveBookingsEndedBefore(START.plusDays(1), archive));
+
+        assertThat(repository.findById("100").orElseThrow().hasBooking("1")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should refuse to move bookings from a durable repository into an archive kept in memory")
+    void refusesVolatileArchiveForDurableRepository(@TempDir Path directory) throws IOException {
+        try (LogRoomRepository repository = new LogRoomRepository(directory)) {
+            BookingSystem bookingSystem = new BookingSystem(() -> START, repository,
+                    Mockito.mock(NotificationService.class));
+
+            var exception = assertThrows(IllegalArgumentException.class,
+                    () -> bookingSystem.archiveBookingsEndedBefore(START, new BookingArchive()));
+
+            assertThat(exception).hasMessage("Ett beständigt repository kräver ett beständigt arkiv");
+        }
+    }
+}
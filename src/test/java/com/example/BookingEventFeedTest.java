@@ -0,0 +1,112 @@
+package com.example;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BookingEventFeedTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+    private static BookingEvent publishCreated(BookingEventFeed feed, int i) {
+        Booking booking = new Booking(String.valueOf(i), "100", START.plusHours(i), START.plusHours(i).plusMinutes(30));
+        return feed.publish(offset -> new BookingEvent.BookingCreated(offset, booking));
+    }
+
+    @Test
+    @DisplayName("Should deliver events to every subscriber in offset order")
+    void deliversInOrder() {
+        BookingEventFeed feed = new BookingEventFeed(8);
+        BookingEventFeed.Subscription first = feed.subscribe();
+        BookingEventFeed.Subscription second = feed.subscribe();
+
+        for (int i = 0; i < 5; i++) {
+            publishCreated(feed, i);
+        }
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(first.poll().offset()).isEqualTo(i);
+        }
+        assertThat(first.poll()).isNull();
+        assertThat(second.poll().offset()).isZero();
+        assertThat(second.getPosition()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should resume from a retained offset and reject offsets that have been overwritten")
+    void resumesFromOffset() {
+        BookingEventFeed feed = new BookingEventFeed(4);
+        for (int i = 0; i < 6; i++) {
+            publishCreated(feed, i);
+        }
+
+        BookingEventFeed.Subscription resumed = feed.subscribe(3);
+
+        assertThat(resumed.poll().offset()).isEqualTo(3);
+        var exception = assertThrows(IllegalArgumentException.class, () -> feed.subscribe(1));
+        assertThat(exception).hasMessage("Offset finns inte längre i flödet: 1");
+        assertThrows(IllegalArgumentException.class, () -> feed.subscribe(7));
+    }
+
+    @Test
+    @DisplayName("Should block the producer while the slowest subscriber is a full ring behind")
+    void appliesBackpressure() throws Exception {
+        BookingEventFeed feed = new BookingEventFeed(2, Duration.ofSeconds(30));
+        BookingEventFeed.Subscription subscription = feed.subscribe();
+        publishCreated(feed, 0);
+        publishCreated(feed, 1);
+
+        CompletableFuture<BookingEvent> blocked = CompletableFuture.supplyAsync(() -> publishCreated(feed, 2));
+
+        assertThat(blocked).isNotDone();
+        TimeUnit.MILLISECONDS.sleep(50);
+        assertThat(blocked).isNotDone();
+        assertThat(subscription.poll().offset()).isZero();
+        await().atMost(Duration.ofSeconds(2)).until(blocked::isDone);
+        assertThat(blocked.get().offset()).isEqualTo(2);
+        assertThat(subscription.poll(Duration.ofSeconds(1)).offset()).isEqualTo(1);
+        assertThat(subscription.poll(Duration.ofSeconds(1)).offset()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should disconnect a subscriber that stops reading instead of blocking the producer for good")
+    void disconnectsSubscriberThatStopsReading() {
+        BookingEventFeed feed = new BookingEventFeed(2, Duration.ofMillis(20));
+        BookingEventFeed.Subscription idle = feed.subscribe();
+
+        CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 10; i++) {
+                publishCreated(feed, i);
+            }
+        });
+
+        assertThat(producer).succeedsWithin(Duration.ofSeconds(5));
+        assertThat(feed.getNextOffset()).isEqualTo(10);
+        assertThat(feed.getDisconnectedCount()).isEqualTo(1);
+        assertThat(feed.getSubscriberCount()).isZero();
+        var exception = assertThrows(IllegalStateException.class, idle::poll);
+        assertThat(exception).hasMessage("Prenumerationen har hamnat för långt efter");
+    }
+
+    @Test
+    @DisplayName("Should not hold back producers once the last subscriber has closed")
+    void publishesFreelyWithoutSubscribers() {
+        BookingEventFeed feed = new BookingEventFeed(2);
+        feed.subscribe().close();
+
+        for (int i = 0; i < 10; i++) {
+            publishCreated(feed, i);
+        }
+
+        assertThat(feed.getNextOffset()).isEqualTo(10);
+        assertThat(feed.getSubscriberCount()).isZero();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookingSystemConcurrencyTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 2_000;
+    private static final int ROOMS = 8;
+    private static final int SLOTS = 200;
+
+    @Test
+    @DisplayName("Should never double-book a room when many threads book the same slots concurrently")
+    void concurrentBookingsNeverOverlap() throws InterruptedException {
+        InMemoryRoomRepository repository = new InMemoryRoomRepository();
+        for (int i = 0; i < ROOMS; i++) {
+            repository.save(new Room("room-" + i, "Room" + i));
+        }
+        Queue<Booking> confirmed = new ConcurrentLinkedQueue<>();
+        BookingSystem bookingSystem = new BookingSystem(() -> NOW, repository,
+                new RecordingNotificationService(confirmed));
+        AtomicInteger successes = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    String roomId = "room-" + random.nextInt(ROOMS);
+                    LocalDateTime startTime = NOW.plusHours(1 + random.nextInt(SLOTS));
+                    LocalDateTime endTime = startTime.plusMinutes(30 + random.nextInt(120));
+                    if (bookingSystem.bookRoom(roomId, startTime, endTime)) {
+                        successes.incrementAndGet();
+                    }
+                    if (i % 10 == 0) {
+                        bookingSystem.getAvailableRooms(startTime, endTime);
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+
+        assertThat(confirmed).hasSize(successes.get());
+        Map<String, List<Booking>> bookingsPerRoom = confirmed.stream()
+                .collect(Collectors.groupingBy(Booking::getRoomId));
+        for (List<Booking> bookings : bookingsPerRoom.values()) {
+            assertThat(findOverlaps(bookings)).isEmpty();
+            bookings.forEach(booking -> assertThat(repository.findByBookingId(booking.getId()))
+                    .map(Room::getId)
+                    .contains(booking.getRoomId()));
+        }
+    }
+
+    private static List<String> findOverlaps(List<Booking> bookings) {
+        List<Booking> sorted = new ArrayList<>(bookings);
+        sorted.sort(Comparator.comparing(Booking::getStartTime));
+        List<String> overlaps = new ArrayList<>();
+        LocalDateTime latestEnd = null;
+        for (Booking booking : sorted) {
+            if (latestEnd != null && !booking.getStartTime().isAfter(latestEnd)) {
+                overlaps.add(booking.getId());
+            }
+            if (latestEnd == null || booking.getEndTime().isAfter(latestEnd)) {
+                latestEnd = booking.getEndTime();
+            }
+        }
+        return overlaps;
+    }
+
+    private record RecordingNotificationService(Queue<Booking> confirmed) implements NotificationService {
+        @Override
+        public void sendBookingConfirmation(Booking booking) {
+            confirmed.add(booking);
+        }
+
+        @Override
+        public void sendCancellationConfirmation(Booking booking) {
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example;
 
+import com.example.metrics.InMemoryMetricsSink;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,12 +10,19 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.verify;
 
@@ -147,6 +155,81 @@ class BookingSystemTest {
         verify(roomRepository, Mockito.never()).save(room);
     }
 
+    @Test
+    @DisplayName("Should book every valid request in a batch and save each touched room once")
+    void bookRoomsSavesEachRoomOnce() throws NotificationException {
+
+        LocalDateTime currentTime = LocalDateTime.now();
+        LocalDateTime startTime = currentTime.plusDays(1);
+        Room room1 = new Room("101", "Room1");
+        Room room2 = new Room("102", "Room2");
+        List<BookingRequest> requests = List.of(
+                new BookingRequest("101", startTime, startTime.plusHours(1)),
+                new BookingRequest("102", startTime, startTime.plusHours(1)),
+                new BookingRequest("101", startTime.plusHours(2), startTime.plusHours(3)));
+
+        Mockito.when(timeProvider.getCurrentTime()).thenReturn(currentTime);
+        Mockito.when(roomRepository.findAllById(Set.of("101", "102"))).thenReturn(List.of(room1, room2));
+
+        List<BookingResult> results = bookingSystem.bookRooms(requests);
+
+        assertThat(results).allMatch(BookingResult::isSuccessful);
+        assertThat(room1.getBookings()).hasSize(2);
+        assertThat(room2.getBookings()).hasSize(1);
+        verify(roomRepository).saveAll(Set.of(room1, room2));
+        verify(roomRepository, Mockito.never()).save(Mockito.any());
+        verify(notificationService, Mockito.times(3)).sendBookingConfirmation(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Should reject requests that overlap each other within the same batch and keep the rest")
+    void bookRoomsRejectsIntraBatchOverlap() {
+
+        LocalDateTime currentTime = LocalDateTime.now();
+        LocalDateTime startTime = currentTime.plusDays(1);
+        Room room = new Room("101", "Room1");
+        List<BookingRequest> requests = List.of(
+                new BookingRequest("101", startTime.plusMinutes(30), startTime.plusHours(2)),
+                new BookingRequest("101", startTime, startTime.plusHours(1)),
+                new BookingRequest("999", startTime, startTime.plusHours(1)),
+                new BookingRequest("101", startTime.minusDays(2), startTime));
+
+        Mockito.when(timeProvider.getCurrentTime()).thenReturn(currentTime);
+        Mockito.when(roomRepository.findAllById(Set.of("101", "999"))).thenReturn(List.of(room));
+
+        List<BookingResult> results = bookingSystem.bookRooms(requests);
+
+        assertThat(results).extracting(BookingResult::failureReason).containsExactly(
+                "Överlappar en annan bokning i samma batch",
+                null,
+                "Rummet existerar inte",
+                "Kan inte boka tid i dåtid");
+        assertThat(room.getBookings()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should book nothing when one request in an all-or-nothing batch fails")
+    void bookRoomsAtomicallyRollsBackWholeBatch() {
+
+        LocalDateTime currentTime = LocalDateTime.now();
+        LocalDateTime startTime = currentTime.plusDays(1);
+        Room room = new Room("101", "Room1");
+        room.addBooking(new Booking("1", "101", startTime.plusHours(5), startTime.plusHours(6)));
+        List<BookingRequest> requests = List.of(
+                new BookingRequest("101", startTime, startTime.plusHours(1)),
+                new BookingRequest("101", startTime.plusHours(5), startTime.plusHours(6)));
+
+        Mockito.when(timeProvider.getCurrentTime()).thenReturn(currentTime);
+        Mockito.when(roomRepository.findAllById(Set.of("101"))).thenReturn(List.of(room));
+
+        List<BookingResult> results = bookingSystem.bookRoomsAtomically(requests);
+
+        assertThat(results).noneMatch(BookingResult::isSuccessful);
+        assertThat(results.get(1).failureReason()).isEqualTo("Rummet är redan bokat");
+        assertThat(room.getBookings()).hasSize(1);
+        verify(roomRepository, Mockito.never()).saveAll(Mockito.any());
+    }
+
     @ParameterizedTest
     @MethodSource("provideNullScenarios")
     @DisplayName("Should throw IllegalArgumentException when searching for available rooms with null dates")
@@ -194,6 +277,46 @@ class BookingSystemTest {
         assertThat(result).hasSize(2);
     }
 
+    @Test
+    @DisplayName("Should answer availability from the availability index without loading all rooms")
+    void getAvailableRoomsUsesAvailabilityIndex() {
+
+        LocalDateTime currentTime = LocalDateTime.now();
+        LocalDateTime startTime = currentTime.plusDays(4);
+        LocalDateTime endTime = currentTime.plusDays(5);
+        Room room1 = new Room("101", "Room1");
+        Room room2 = new Room("102", "Room2");
+        room1.addBooking(new Booking("1", "101", startTime, endTime));
+        AvailabilityIndex index = new AvailabilityIndex(Duration.ofMinutes(15));
+        index.addRooms(List.of(room1, room2));
+        bookingSystem.setAvailabilityIndex(index);
+
+        List<Room> result = bookingSystem.getAvailableRooms(startTime, endTime);
+
+        assertThat(result).containsExactly(room2);
+        verify(roomRepository, Mockito.never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Should include rooms saved to the repository after the availability index was built")
+    void getAvailableRoomsAddsRoomsMissingFromIndex() {
+
+        LocalDateTime currentTime = LocalDateTime.now();
+        LocalDateTime startTime = currentTime.plusDays(4);
+        LocalDateTime endTime = currentTime.plusDays(5);
+        Room room1 = new Room("101", "Room1");
+        Room room2 = new Room("102", "Room2");
+        AvailabilityIndex index = new AvailabilityIndex(Duration.ofMinutes(15));
+        index.addRoom(room1);
+        bookingSystem.setAvailabilityIndex(index);
+        Mockito.when(roomRepository.count()).thenReturn(2);
+        Mockito.when(roomRepository.findAll()).thenReturn(List.of(room1, room2));
+
+        assertThat(bookingSystem.getAvailableRooms(startTime, endTime)).containsExactly(room1, room2);
+        assertThat(bookingSystem.getAvailableRooms(startTime, endTime)).containsExactly(room1, room2);
+        verify(roomRepository, Mockito.times(1)).findAll();
+    }
+
     @Test
     @DisplayName("Should throw IllegalArgumentException if the booking ID to cancel is null")
     void cancelBookingThrowsExceptionWhenBookingIdIsNull() {
@@ -220,7 +343,7 @@ class BookingSystemTest {
         room2.addBooking(booking2);
 
         Mockito.when(timeProvider.getCurrentTime()).thenReturn(currentTime);
-        Mockito.when(roomRepository.findAll()).thenReturn(List.of(room1, room2));
+        Mockito.when(roomRepository.findByBookingId("1")).thenReturn(Optional.of(room1));
 
         boolean result = bookingSystem.cancelBooking("1");
 
@@ -231,6 +354,7 @@ class BookingSystemTest {
         assertThat(room2.hasBooking("2")).isTrue();
 
         verify(roomRepository).save(room1);
+        verify(roomRepository, Mockito.never()).findAll();
     }
 
     @Test
@@ -245,7 +369,7 @@ class BookingSystemTest {
 
         room.addBooking(booking);
         Mockito.when(timeProvider.getCurrentTime()).thenReturn(currentTime);
-        Mockito.when(roomRepository.findAll()).thenReturn(List.of(room));
+        Mockito.when(roomRepository.findByBookingId("1")).thenReturn(Optional.of(room));
 
         var exception = assertThrows(IllegalStateException.class,
                 () -> bookingSystem.cancelBooking("1"));
@@ -256,12 +380,352 @@ class BookingSystemTest {
     @Test
     @DisplayName("Should return false when attempting to cancel a booking ID that is not found in any room")
     void cancelBookingShouldReturnFalseIfBookingDoesNotExist() {
+        Mockito.when(roomRepository.findByBookingId("999")).thenReturn(Optional.empty());
+        boolean result = bookingSystem.cancelBooking("999");
+
+        assertThat(result).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should stream bookings from several rooms in start time order, limited to the requested window")
+    void getBookingsMergesRoomsInTimeOrder() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 8, 0);
+        Room room1 = new Room("100", "Room1");
+        Room room2 = new Room("200", "Room2");
+        room1.addBooking(new Booking("a", "100", start, start.plusHours(1)));
+        room1.addBooking(new Booking("c", "100", start.plusHours(4), start.plusHours(5)));
+        room1.addBooking(new Booking("e", "100", start.plusDays(1), start.plusDays(1).plusHours(1)));
+        room2.addBooking(new Booking("b", "200", start.minusHours(2), start.plusHours(2)));
+        room2.addBooking(new Booking("d", "200", start.plusHours(6), start.plusHours(7)));
+
+        Mockito.when(roomRepository.findSnapshotById("100")).thenReturn(Optional.of(room1));
+        Mockito.when(roomRepository.findSnapshotById("200")).thenReturn(Optional.of(room2));
+
+        List<String> ids = bookingSystem.getBookings(List.of("100", "200"), start, start.plusHours(8))
+                .map(Booking::getId)
+                .toList();
+
+        assertThat(ids).containsExactly("b", "a", "c", "d");
+    }
+
+    @Test
+    @DisplayName("Should page through bookings with a cursor without repeating or skipping any booking")
+    void getBookingsPageFollowsCursor() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 8, 0);
+        Room room1 = new Room("100", "Room1");
+        Room room2 = new Room("200", "Room2", Room.Storage.COMPACT);
+        for (int i = 0; i < 5; i++) {
+            room1.addBooking(new Booking("r1-" + i, "100", start.plusHours(i), start.plusHours(i).plusMinutes(30)));
+            room2.addBooking(new Booking("r2-" + i, "200", start.plusHours(i), start.plusHours(i).plusMinutes(30)));
+        }
+
+        Mockito.when(roomRepository.findSnapshotById("100")).thenReturn(Optional.of(room1));
+        Mockito.when(roomRepository.findSnapshotById("200")).thenReturn(Optional.of(room2));
+
+        List<String> ids = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            BookingPage page = bookingSystem.getBookingsPage(List.of("100", "200"), start, start.plusDays(1), cursor, 3);
+            page.bookings().forEach(booking -> ids.add(booking.getId()));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(4);
+        assertThat(ids).containsExactly("r1-0", "r2-0", "r1-1", "r2-1", "r1-2", "r2-2",
+                "r1-3", "r2-3", "r1-4", "r2-4");
+    }
+
+    @Test
+    @DisplayName("Should page through indexed bookings after the year 2262")
+    void getBookingsPageBeyondEpochNanos() {
+        LocalDateTime start = LocalDateTime.of(2300, 1, 1, 8, 0);
+        Room room = new Room("100", "Room1");
+        for (int i = 0; i < 3; i++) {
+            room.addBooking(new Booking("b" + i, "100", start.plusHours(i), start.plusHours(i).plusMinutes(30)));
+        }
+        Mockito.when(roomRepository.findSnapshotById("100")).thenReturn(Optional.of(room));
+
+        BookingPage first = bookingSystem.getBookingsPage(List.of("100"), start, start.plusDays(1), null, 2);
+        BookingPage second = bookingSystem.getBookingsPage(List.of("100"), start, start.plusDays(1),
+                first.nextCursor(), 2);
+
+        assertThat(first.bookings()).extracting(Booking::getId).containsExactly("b0", "b1");
+        assertThat(second.bookings()).extracting(Booking::getId).containsExactly("b2");
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should throw IllegalArgumentException when listing bookings for a room that does not exist")
+    void getBookingsForUnknownRoom() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 8, 0);
+        Mockito.when(roomRepository.findSnapshotById("999")).thenReturn(Optional.empty());
+
+        var exception = assertThrows(IllegalArgumentException.class,
+                () -> bookingSystem.getBookings("999", start, start.plusHours(1)));
+
+        assertThat(exception).hasMessage("Rummet existerar inte");
+    }
+
+    @Test
+    @DisplayName("Should return the earliest free slots across rooms, including later gaps in the same room")
+    void findNextAvailableReturnsEarliestSlots() {
+        LocalDateTime now = LocalDateTime.of(2030, 1, 1, 8, 0);
+        LocalDateTime afternoon = now.withHour(14);
+        Room room1 = new Room("100", "Room1");
+        Room room2 = new Room("200", "Room2");
+        Room room3 = new Room("300", "Storage");
+        room1.addBooking(new Booking("1", "100", afternoon, afternoon.plusMinutes(30)));
+        room1.addBooking(new Booking("2", "100", afternoon.plusMinutes(100), afternoon.plusHours(3)));
+        room2.addBooking(new Booking("3", "200", afternoon.minusHours(1), afternoon.plusHours(2)));
+
+        Mockito.when(timeProvider.getCurrentTime()).thenReturn(now);
+        Mockito.when(roomRepository.findAll()).thenReturn(List.of(room1, room2, room3));
+
+        List<AvailableSlot> slots = bookingSystem.findNextAvailable(Duration.ofHours(1), afternoon,
+                afternoon.plusHours(6), room -> room.getName().startsWith("Room"), 3);
+
+        assertThat(slots).extracting(AvailableSlot::roomId).containsExactly("100", "200", "100");
+        assertThat(slots).extracting(AvailableSlot::startTime).containsExactly(
+                afternoon.plusMinutes(30).plusNanos(1),
+                afternoon.plusHours(2).plusNanos(1),
+                afternoon.plusHours(3).plusNanos(1));
+        assertThat(slots).allSatisfy(slot -> assertThat(slot.endTime()).isEqualTo(slot.startTime().plusHours(1)));
+    }
+
+    @Test
+    @DisplayName("Should answer from the availability index when enough rooms are free from the earliest start")
+    void findNextAvailableUsesAvailabilityIndex() {
+        LocalDateTime now = LocalDateTime.of(2030, 1, 1, 8, 0);
+        Room room1 = new Room("100", "Room1");
+        Room room2 = new Room("200", "Room2");
+        Room room3 = new Room("300", "Room3");
+        room1.addBooking(new Booking("1", "100", now, now.plusHours(2)));
+        AvailabilityIndex index = new AvailabilityIndex(Duration.ofMinutes(15));
+        index.addRooms(List.of(room1, room2, room3));
+        bookingSystem.setAvailabilityIndex(index);
+
+        Mockito.when(timeProvider.getCurrentTime()).thenReturn(now);
+
+        assertThat(bookingSystem.findNextAvailable(Duration.ofHours(1), now, now.plusHours(6), null, 2))
+                .extracting(AvailableSlot::roomId, AvailableSlot::startTime)
+                .containsExactly(tuple("200", now), tuple("300", now));
+        verify(roomRepository, Mockito.never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Should pick the same slots as walking the gaps of every room, for random bookings and queries")
+    void findNextAvailableMatchesWalkingEveryRoom() {
+        LocalDateTime now = LocalDateTime.of(2030, 1, 1, 8, 0);
+        Random random = new Random(42);
+        List<Room> rooms = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Room room = new Room("room-" + i, "Room" + i);
+            for (int b = 0; b < 20; b++) {
+                LocalDateTime startTime = now.plusMinutes(random.nextInt(3 * 24 * 60));
+                room.addBooking(new Booking(i + "-" + b, room.getId(), startTime,
+                        startTime.plusMinutes(1 + random.nextInt(240))));
+            }
+            rooms.add(room);
+        }
+        Mockito.when(timeProvider.getCurrentTime()).thenReturn(now);
+        Mockito.when(roomRepository.findAll()).thenReturn(rooms);
+
+        for (int q = 0; q < 200; q++) {
+            Duration duration = Duration.ofMinutes(15 + random.nextInt(300));
+            LocalDateTime earliestStart = now.plusMinutes(random.nextInt(3 * 24 * 60));
+            LocalDateTime latestEnd = earliestStart.plusHours(6 + random.nextInt(48));
+            int limit = 1 + random.nextInt(12);
+
+            List<AvailableSlot> expected = new ArrayList<>();
+            for (Room room : rooms) {
+                RoomGapWalker gaps = new RoomGapWalker(room, duration, earliestStart, latestEnd);
+                for (LocalDateTime start = gaps.nextSlotStart(); start != null; start = gaps.nextSlotStart()) {
+                    expected.add(new AvailableSlot(room.getId(), start, start.plus(duration)));
+                }
+            }
+            expected.sort(Comparator.comparing(AvailableSlot::startTime).thenComparing(AvailableSlot::roomId));
+
+            assertThat(bookingSystem.findNextAvailable(duration, earliestStart, latestEnd, null, limit))
+                    .isEqualTo(expected.subList(0, Math.min(limit, expected.size())));
+        }
+    }
+
+    @Test
+    @DisplayName("Should return no slots when no room has a long enough gap before the latest end")
+    void findNextAvailableWithinLatestEnd() {
+        LocalDateTime now = LocalDateTime.of(2030, 1, 1, 8, 0);
         Room room = new Room("100", "Room1");
+        room.addBooking(new Booking("1", "100", now.plusHours(1), now.plusHours(3)));
 
+        Mockito.when(timeProvider.getCurrentTime()).thenReturn(now);
         Mockito.when(roomRepository.findAll()).thenReturn(List.of(room));
-        boolean result = bookingSystem.cancelBooking("999");
 
-        assertThat(result).isFalse();
+        assertThat(bookingSystem.findNextAvailable(Duration.ofHours(2), now, now.plusHours(4), null, 5)).isEmpty();
+        assertThat(bookingSystem.findNextAvailable(Duration.ofMinutes(30), now, now.plusHours(4), null, 5))
+                .extracting(AvailableSlot::startTime)
+                .containsExactly(now, now.plusHours(3).plusNanos(1));
+    }
+
+    @Test
+    @DisplayName("Should count successful, conflicting and invalid bookings and swallowed notification failures")
+    void recordsBookingMetrics() throws NotificationException {
+        InMemoryMetricsSink metrics = new InMemoryMetricsSink();
+        bookingSystem.setMetricsSink(metrics);
+        LocalDateTime currentTime = LocalDateTime.of(2030, 1, 1, 8, 0);
+        Room room = new Room("100", "Room1");
+        Mockito.when(timeProvider.getCurrentTime()).thenReturn(currentTime);
+        Mockito.when(roomRepository.findById("100")).thenReturn(Optional.of(room));
+        Mockito.doThrow(new NotificationException("Nere")).when(notificationService).sendBookingConfirmation(Mockito.any());
+
+        bookingSystem.bookRoom("100", currentTime.plusHours(1), currentTime.plusHours(2));
+        bookingSystem.bookRoom("100", currentTime.plusHours(1), currentTime.plusHours(2));
+        assertThrows(IllegalArgumentException.class,
+                () -> bookingSystem.bookRoom("100", currentTime.minusHours(1), currentTime));
+
+        assertThat(metrics.getCount("booking.success")).isEqualTo(1);
+        assertThat(metrics.getCount("booking.conflict")).isEqualTo(1);
+        assertThat(metrics.getCount("booking.validationFailure")).isEqualTo(1);
+        assertThat(metrics.getCount("booking.notificationFailure")).isEqualTo(1);
+        assertThat(metrics.getHistogram("booking.bookRoom").getCount()).isEqualTo(3);
+        assertThat(metrics.getHistogram("dependency.RoomRepository.findById").getCount()).isEqualTo(2);
+        assertThat(metrics.getHistogram("dependency.RoomRepository.save").getCount()).isEqualTo(1);
+        assertThat(metrics.getHistogram("dependency.NotificationService.sendBookingConfirmation").getCount())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should create a recurring booking only when none of its occurrences collide with bookings or other rules")
+    void bookRecurringChecksConflicts() {
+        LocalDateTime currentTime = LocalDateTime.of(2030, 1, 1, 8, 0);
+        LocalDateTime start = currentTime.plusDays(1);
+        Room room = new Room("100", "Room1");
+        room.addBooking(new Booking("1", "100", start.plusWeeks(10), start.plusWeeks(10).plusHours(1)));
+        Mockito.when(timeProvider.getCurrentTime()).thenReturn(currentTime);
+        Mockito.when(roomRepository.findById("100")).thenReturn(Optional.of(room));
+
+        Optional<RecurringBooking> blocked = bookingSystem.bookRecurring("100", start, start.plusHours(1),
+                RecurrenceRule.times(RecurrenceRule.Frequency.WEEKLY, 1, 20));
+        Optional<RecurringBooking> created = bookingSystem.bookRecurring("100", start.plusHours(2), start.plusHours(3),
+                RecurrenceRule.times(RecurrenceRule.Frequency.WEEKLY, 1, 20));
+        Optional<RecurringBooking> overlappingRule = bookingSystem.bookRecurring("100", start.plusWeeks(5).plusHours(2),
+                start.plusWeeks(5).plusHours(4), RecurrenceRule.times(RecurrenceRule.Frequency.DAILY, 1, 3));
+
+        assertThat(blocked).isEmpty();
+        assertThat(created).isPresent();
+        assertThat(overlappingRule).isEmpty();
+        assertThat(room.getRecurringBookings()).containsExactly(created.get());
+        verify(roomRepository).save(room);
+    }
+
+    @Test
+    @DisplayName("Should cancel a single occurrence by adding an exception to the recurring booking")
+    void cancelOccurrenceAddsException() throws NotificationException {
+        LocalDateTime currentTime = LocalDateTime.of(2030, 1, 1, 8, 0);
+        LocalDateTime start = currentTime.plusDays(1);
+        Room room = new Room("100", "Room1");
+        room.addRecurringBooking(new RecurringBooking("r1", "100", start, start.plusHours(1),
+                RecurrenceRule.times(RecurrenceRule.Frequency.WEEKLY, 1, 10)));
+        Mockito.when(timeProvider.getCurrentTime()).thenReturn(currentTime);
+        Mockito.when(roomRepository.findById("100")).thenReturn(Optional.of(room));
+
+        boolean cancelled = bookingSystem.cancelOccurrence("100", "r1", start.plusWeeks(3));
+        boolean notAnOccurrence = bookingSystem.cancelOccurrence("100", "r1", start.plusWeeks(3).plusHours(1));
+
+        assertThat(cancelled).isTrue();
+        assertThat(notAnOccurrence).isFalse();
+        assertThat(room.getRecurringBooking("r1").getExceptions()).containsExactly(start.plusWeeks(3));
+        assertThat(room.isAvailable(start.plusWeeks(3), start.plusWeeks(3).plusHours(1))).isTrue();
+        verify(notificationService).sendCancellationConfirmation(bookingCaptor.capture());
+        assertThat(bookingCaptor.getValue().getStartTime()).isEqualTo(start.plusWeeks(3));
+    }
+
+    @Test
+    @DisplayName("Should publish created and cancelled events to the event feed in the order they happened")
+    void publishesBookingEvents() throws NotificationException {
+        LocalDateTime currentTime = LocalDateTime.of(2030, 1, 1, 8, 0);
+        Room room = new Room("100", "Room1");
+        Mockito.when(timeProvider.getCurrentTime()).thenReturn(currentTime);
+        Mockito.when(roomRepository.findById("100")).thenReturn(Optional.of(room));
+        Mockito.when(roomRepository.findByBookingId(Mockito.anyString())).thenReturn(Optional.of(room));
+        BookingEventFeed feed = new BookingEventFeed(16);
+        bookingSystem.setEventFeed(feed);
+        BookingEventFeed.Subscription subscription = feed.subscribe();
+
+        bookingSystem.bookRoom("100", currentTime.plusDays(1), currentTime.plusDays(1).plusHours(1));
+        String bookingId = room.getBookings().iterator().next().getId();
+        bookingSystem.cancelBooking(bookingId);
+
+        BookingEvent created = subscription.poll();
+        BookingEvent cancelled = subscription.poll();
+        assertThat(created).isInstanceOf(BookingEvent.BookingCreated.class);
+        assertThat(created.offset()).isZero();
+        assertThat(cancelled).isInstanceOf(BookingEvent.BookingCancelled.class);
+        assertThat(((BookingEvent.BookingCancelled) cancelled).booking().getId()).isEqualTo(bookingId);
+        assertThat(cancelled.roomId()).isEqualTo("100");
+        assertThat(subscription.poll()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should keep booking when an event subscriber has stopped reading")
+    void bookingIsNotHeldBackByIdleSubscriber() {
+        LocalDateTime currentTime = LocalDateTime.of(2030, 1, 1, 8, 0);
+        Room room = new Room("100", "Room1");
+        Mockito.when(timeProvider.getCurrentTime()).thenReturn(currentTime);
+        Mockito.when(roomRepository.findById("100")).thenReturn(Optional.of(room));
+        BookingEventFeed feed = new BookingEventFeed(2, Duration.ofMillis(20));
+        bookingSystem.setEventFeed(feed);
+        BookingEventFeed.Subscription idle = feed.subscribe();
+
+        for (int i = 0; i < 5; i++) {
+            LocalDateTime startTime = currentTime.plusDays(1).plusHours(i);
+            assertThat(bookingSystem.bookRoom("100", startTime, startTime.plusMinutes(30))).isTrue();
+        }
+
+        assertThat(feed.getDisconnectedCount()).isEqualTo(1);
+        assertThrows(IllegalStateException.class, idle::poll);
+    }
+
+    @Test
+    @DisplayName("Should return the same rooms in the same order when availability is evaluated in parallel")
+    void parallelAvailabilityKeepsOrder() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 8, 0);
+        List<Room> rooms = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            Room room = new Room(String.valueOf(i), "Room" + i);
+            if (i % 3 == 0) {
+                room.addBooking(new Booking("b" + i, room.getId(), start, start.plusHours(1)));
+            }
+            rooms.add(room);
+        }
+        Mockito.when(roomRepository.findAll()).thenReturn(rooms);
+
+        List<Room> sequential = bookingSystem.getAvailableRooms(start, start.plusMinutes(30));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            bookingSystem.setAvailabilityPool(pool);
+            bookingSystem.setParallelThreshold(1);
+            List<Room> parallel = bookingSystem.getAvailableRooms(start, start.plusMinutes(30));
+
+            assertThat(parallel).hasSize(1_333).containsExactlyElementsOf(sequential);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should switch to parallel evaluation once the measured work per query is large enough")
+    void parallelThresholdIsCalibrated() {
+        assertThat(bookingSystem.runsInParallel(1_000_000)).isFalse();
+
+        bookingSystem.calibrate(1_000, 1_000 * 2_000L);
+
+        assertThat(bookingSystem.runsInParallel(400)).isFalse();
+        assertThat(bookingSystem.runsInParallel(500)).isTrue();
+
+        bookingSystem.setParallelThreshold(10_000);
+        assertThat(bookingSystem.runsInParallel(500)).isFalse();
     }
 
 }
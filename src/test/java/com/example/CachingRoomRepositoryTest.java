@@ -0,0 +1,198 @@
+package com.example;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class CachingRoomRepositoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+    @Test
+    @DisplayName("Should serve repeated reads from the cache and write saves through to the backend")
+    void cachesReadsAndWritesThrough() {
+        InMemoryRoomRepository backend = new InMemoryRoomRepository();
+        backend.save(new Room("100", "Room1"));
+        CachingRoomRepository cache = new CachingRoomRepository(backend, 10, Duration.ofMinutes(1));
+
+        Room room = cache.findById("100").orElseThrow();
+        room.addBooking(new Booking("1", "100", START, START.plusHours(1)));
+        cache.save(room);
+
+        assertThat(cache.findById("100").orElseThrow().hasBooking("1")).isTrue();
+        assertThat(backend.findById("100").orElseThrow().hasBooking("1")).isTrue();
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should hand out copies so that unsaved changes never reach the cached room")
+    void cachedRoomIsNotShared() {
+        InMemoryRoomRepository backend = new InMemoryRoomRepository();
+        backend.save(new Room("100", "Room1"));
+        CachingRoomRepository cache = new CachingRoomRepository(backend, 10, Duration.ofMinutes(1));
+
+        cache.findById("100").orElseThrow().addBooking(new Booking("1", "100", START, START.plusHours(1)));
+
+        assertThat(cache.findById("100").orElseThrow().hasBooking("1")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should reload a room that was changed in the backend behind the cache")
+    void detectsStaleEntries() {
+        InMemoryRoomRepository backend = new InMemoryRoomRepository();
+        backend.save(new Room("100", "Room1"));
+        CachingRoomRepository cache = new CachingRoomRepository(backend, 10, Duration.ofMinutes(1));
+        cache.findById("100");
+
+        Room changed = backend.findById("100").orElseThrow();
+        changed.addBooking(new Booking("1", "100", START, START.plusHours(1)));
+        backend.save(changed);
+
+        assertThat(cache.findById("100").orElseThrow().isAvailable(START, START.plusMinutes(30))).isFalse();
+        assertThat(cache.getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should validate a cache hit with a version lookup instead of loading the room again")
+    void hitsOnlyLookUpTheVersion() {
+        InMemoryRoomRepository backend = Mockito.spy(new InMemoryRoomRepository());
+        backend.save(new Room("100", "Room1"));
+        CachingRoomRepository cache = new CachingRoomRepository(backend, 10, Duration.ofMinutes(1));
+
+        cache.findById("100");
+        cache.findById("100");
+        cache.findById("100");
+
+        verify(backend, times(1)).findSnapshotById("100");
+        verify(backend, times(2)).findVersionById("100");
+        verify(backend, Mockito.never()).findById("100");
+    }
+
+    @Test
+    @DisplayName("Should read findAll from the backend so that rooms changed behind the cache are seen")
+    void findAllSeesChangesBehindTheCache() {
+        InMemoryRoomRepository backend = new InMemoryRoomRepository();
+        backend.save(new Room("100", "Room1"));
+        CachingRoomRepository cache = new CachingRoomRepository(backend, 10, Duration.ofMinutes(1));
+        cache.findAll();
+
+        Room changed = backend.findById("100").orElseThrow();
+        changed.addBooking(new Booking("1", "100", START, START.plusHours(1)));
+        backend.save(changed);
+        backend.save(new Room("200", "Room2"));
+
+        assertThat(cache.findAll()).extracting(Room::getId).containsExactly("100", "200");
+        assertThat(cache.findAll().get(0).hasBooking("1")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should spread a large cache over segments without going over its maximum size")
+    void segmentedCacheKeepsMaximumSize() {
+        InMemoryRoomRepository backend = new InMemoryRoomRepository();
+        for (int i = 0; i < 2_000; i++) {
+            backend.save(new Room("r" + i, "Room" + i));
+        }
+        CachingRoomRepository cache = new CachingRoomRepository(backend, 1_000, Duration.ofMinutes(1));
+
+        for (int i = 0; i < 2_000; i++) {
+            cache.findById("r" + i);
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(1_000);
+        assertThat(cache.getEvictionCount()).isEqualTo(2_000 - cache.size());
+    }
+
+    @Test
+    @DisplayName("Should find the room of a booking through the cache and notice when the booking has been removed")
+    void cachesFindByBookingId() {
+        InMemoryRoomRepository backend = Mockito.spy(new InMemoryRoomRepository());
+        Room saved = new Room("100", "Room1");
+        saved.addBooking(new Booking("1", "100", START, START.plusHours(1)));
+        backend.save(saved);
+        CachingRoomRepository cache = new CachingRoomRepository(backend, 10, Duration.ofMinutes(1));
+
+        assertThat(cache.findByBookingId("1")).map(Room::getId).contains("100");
+        assertThat(cache.findByBookingId("1")).map(Room::getId).contains("100");
+        verify(backend, times(1)).findByBookingId("1");
+
+        Room room = cache.findById("100").orElseThrow();
+        room.removeBooking("1");
+        cache.save(room);
+
+        assertThat(cache.findByBookingId("1")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used room when full and expire rooms after their time to live")
+    void evictsBySizeAndAge() {
+        InMemoryRoomRepository backend = new InMemoryRoomRepository();
+        backend.save(new Room("100", "Room1"));
+        backend.save(new Room("200", "Room2"));
+        backend.save(new Room("300", "Room3"));
+        AtomicLong now = new AtomicLong();
+        CachingRoomRepository cache = new CachingRoomRepository(backend, 2, Duration.ofSeconds(10), now::get);
+
+        cache.findById("100");
+        cache.findById("200");
+        cache.findById("100");
+        cache.findById("300");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        cache.findById("100");
+
+        assertThat(cache.getEvictionCount()).isEqualTo(2);
+        assertThat(cache.getMissCount()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should load a room only once when several threads miss on it at the same time")
+    void coalescesConcurrentLoads() throws Exception {
+        RoomRepository backend = Mockito.mock(RoomRepository.class);
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        Mockito.when(backend.findSnapshotById("100")).thenAnswer(invocation -> {
+            loadStarted.countDown();
+            releaseLoad.await(5, TimeUnit.SECONDS);
+            return Optional.of(new Room("100", "Room1"));
+        });
+        CachingRoomRepository cache = new CachingRoomRepository(backend, 10, Duration.ofMinutes(1));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<Optional<Room>> first = executor.submit(() -> cache.findById("100"));
+            loadStarted.await(5, TimeUnit.SECONDS);
+            Future<Optional<Room>> second = executor.submit(() -> cache.findById("100"));
+            Future<Optional<Room>> third = executor.submit(() -> cache.findById("100"));
+            while (cache.getCoalescedLoadCount() < 2) {
+                Thread.onSpinWait();
+            }
+            releaseLoad.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isPresent();
+            assertThat(second.get(5, TimeUnit.SECONDS)).isPresent();
+            assertThat(third.get(5, TimeUnit.SECONDS)).isPresent();
+            assertThat(second.get().get()).isNotSameAs(third.get().get());
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(backend, times(1)).findSnapshotById("100");
+    }
+}
@@ -0,0 +1,55 @@
+package com.example;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class CoarseClockTimeProviderTest {
+
+    private static final Instant START = Instant.parse("2030-01-01T08:00:00Z");
+
+    @Test
+    @DisplayName("Should serve the cached time between ticks and pick up the clock on the next tick")
+    void refreshesOnTicks() {
+        AtomicReference<Instant> now = new AtomicReference<>(START);
+        Clock clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now.get();
+            }
+        };
+
+        try (CoarseClockTimeProvider timeProvider = new CoarseClockTimeProvider(clock, Duration.ofMillis(5))) {
+            LocalDateTime first = timeProvider.getCurrentTime();
+            assertThat(first).isEqualTo(LocalDateTime.of(2030, 1, 1, 8, 0));
+            assertThat(timeProvider.getCurrentTime()).isSameAs(first);
+
+            now.set(START.plusSeconds(60));
+
+            await().atMost(Duration.ofSeconds(5))
+                    .until(() -> timeProvider.getCurrentTime().equals(LocalDateTime.of(2030, 1, 1, 8, 1)));
+            assertThat(EpochNanos.toLocalDateTime(timeProvider.currentEpochNanos()))
+                    .isEqualTo(LocalDateTime.of(2030, 1, 1, 8, 1));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InMemoryRoomRepositoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+    @Test
+    @DisplayName("Should hand out read-only snapshots that do not change when the room is saved again")
+    void findAllReturnsImmutableSnapshots() {
+        InMemoryRoomRepository repository = new InMemoryRoomRepository();
+        repository.save(new Room("100", "Room1"));
+        Room snapshot = repository.findAll().getFirst();
+
+        Room room = repository.findById("100").orElseThrow();
+        room.addBooking(new Booking("1", "100", START, START.plusHours(1)));
+        repository.save(room);
+
+        assertThat(snapshot.isReadOnly()).isTrue();
+        assertThat(snapshot.hasBooking("1")).isFalse();
+        assertThat(repository.findAll().getFirst().hasBooking("1")).isTrue();
+        assertThrows(UnsupportedOperationException.class,
+                () -> snapshot.addBooking(new Booking("2", "100", START, START.plusHours(1))));
+    }
+
+    @Test
+    @DisplayName("Should not expose changes to a room before it has been saved")
+    void unsavedChangesAreInvisible() {
+        InMemoryRoomRepository repository = new InMemoryRoomRepository();
+        repository.save(new Room("100", "Room1"));
+
+        Room room = repository.findById("100").orElseThrow();
+        room.addBooking(new Booking("1", "100", START, START.plusHours(1)));
+
+        assertThat(repository.findById("100").orElseThrow().hasBooking("1")).isFalse();
+        assertThat(repository.findByBookingId("1")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reject a save based on a version of the room that has since been replaced")
+    void rejectsStaleSave() {
+        InMemoryRoomRepository repository = new InMemoryRoomRepository();
+        repository.save(new Room("100", "Room1"));
+        Room first = repository.findById("100").orElseThrow();
+        Room second = repository.findById("100").orElseThrow();
+
+        first.addBooking(new Booking("1", "100", START, START.plusHours(1)));
+        repository.save(first);
+        second.addBooking(new Booking("2", "100", START, START.plusHours(1)));
+
+        var exception = assertThrows(IllegalStateException.class, () -> repository.save(second));
+        assertThat(exception).hasMessage("Rummet har ändrats sedan det lästes");
+        assertThat(first.getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should find the room of a booking through the booking id index and forget removed bookings")
+    void findByBookingIdUsesIndex() {
+        InMemoryRoomRepository repository = new InMemoryRoomRepository();
+        repository.save(new Room("100", "Room1"));
+        repository.save(new Room("200", "Room2"));
+        Room room = repository.findById("200").orElseThrow();
+        room.addBooking(new Booking("1", "200", START, START.plusHours(1)));
+        repository.save(room);
+
+        assertThat(repository.findByBookingId("1")).map(Room::getId).contains("200");
+
+        room.removeBooking("1");
+        repository.save(room);
+
+        assertThat(repository.findByBookingId("1")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should support custom secondary indexes, including rooms saved before the index was added")
+    void customSecondaryIndex() {
+        InMemoryRoomRepository repository = new InMemoryRoomRepository();
+        repository.save(new Room("100", "Conference A"));
+        repository.addIndex("name", room -> List.of(room.getName()));
+        repository.save(new Room("200", "Conference B"));
+
+        assertThat(repository.findByIndex("name", "Conference A")).extracting(Room::getId).containsExactly("100");
+        assertThat(repository.findByIndex("name", "Conference B")).extracting(Room::getId).containsExactly("200");
+    }
+}
@@ -0,0 +1,234 @@
+package com.example;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LogRoomRepositoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 8, 0, 0, 123_456_789);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should restore rooms and bookings after a restart")
+    void survivesRestart() throws IOException {
+        try (LogRoomRepository repository = new LogRoomRepository(directory)) {
+            repository.save(new Room("100", "Room1"));
+            Room room = repository.findById("100").orElseThrow();
+            room.addBooking(new Booking("1", "100", START, START.plusHours(1)));
+            room.addBooking(new Booking("2", "100", START.plusHours(2), START.plusHours(3)));
+            repository.save(room);
+            room.removeBooking("1");
+            repository.save(room);
+        }
+
+        try (LogRoomRepository reopened = new LogRoomRepository(directory)) {
+            Room room = reopened.findById("100").orElseThrow();
+
+            assertThat(room.getName()).isEqualTo("Room1");
+            assertThat(room.hasBooking("1")).isFalse();
+            assertThat(room.getBooking("2").getStartTime()).isEqualTo(START.plusHours(2));
+            assertThat(reopened.findByBookingId("2")).map(Room::getId).contains("100");
+        }
+    }
+
+    @Test
+    @DisplayName("Should restore recurring bookings with their rules and exceptions, also from a compacted snapshot")
+    void restoresRecurringBookings() throws Exception {
+        try (LogRoomRepository repository = new LogRoomRepository(directory,
+                LogRoomRepository.FsyncPolicy.EVERY_WRITE, 1, Duration.ZERO, 4)) {
+            repository.save(new Room("100", "Room1"));
+            Room room = repository.findById("100").orElseThrow();
+            room.addRecurringBooking(new RecurringBooking("weekly", "100", START, START.plusHours(1),
+                    RecurrenceRule.times(RecurrenceRule.Frequency.WEEKLY, 1, 10)));
+            room.addRecurringBooking(new RecurringBooking("daily", "100", START.plusHours(2), START.plusHours(3),
+                    RecurrenceRule.until(RecurrenceRule.Frequency.DAILY, 2, START.plusDays(20))));
+            repository.save(room);
+            repository.awaitCompaction();
+            room.addOccurrenceException("weekly", START.plusWeeks(3));
+            room.addRecurringBooking(new RecurringBooking("gone", "100", START.plusHours(5), START.plusHours(6),
+                    RecurrenceRule.times(RecurrenceRule.Frequency.MONTHLY, 1, 3)));
+            repository.save(room);
+            room.removeRecurringBooking("gone");
+            repository.save(room);
+        }
+
+        try (LogRoomRepository reopened = new LogRoomRepository(directory)) {
+            Room room = reopened.findById("100").orElseThrow();
+
+            assertThat(room.getRecurringBookings()).extracting(RecurringBooking::getId)
+                    .containsExactlyInAnyOrder("weekly", "daily");
+            assertThat(room.getRecurringBooking("weekly").getRule())
+                    .isEqualTo(RecurrenceRule.times(RecurrenceRule.Frequency.WEEKLY, 1, 10));
+            assertThat(room.getRecurringBooking("weekly").getExceptions()).containsExactly(START.plusWeeks(3));
+            assertThat(room.getRecurringBooking("daily").getRule())
+                    .isEqualTo(RecurrenceRule.until(RecurrenceRule.Frequency.DAILY, 2, START.plusDays(20)));
+            assertThat(room.isAvailable(START.plusWeeks(2), START.plusWeeks(2).plusMinutes(30))).isFalse();
+            assertThat(room.isAvailable(START.plusWeeks(3), START.plusWeeks(3).plusMinutes(30))).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("Should write one fixed-width record per added or removed booking")
+    void writesOneRecordPerChange() throws IOException {
+        try (LogRoomRepository repository = new LogRoomRepository(directory)) {
+            repository.save(new Room("100", "Room1"));
+            Room room = repository.findById("100").orElseThrow();
+            room.addBooking(new Booking("1", "100", START, START.plusHours(1)));
+            repository.save(room);
+            room.removeBooking("1");
+            repository.save(room);
+
+            assertThat(repository.getLogRecordCount()).isEqualTo(3);
+        }
+        assertThat(Files.size(directory.resolve(LogRoomRepository.LOG_FILE))).isEqualTo(3L * LogRecord.SIZE);
+    }
+
+    @Test
+    @DisplayName("Should move the state into a snapshot and empty the log when compacting in the background")
+    void compactionWritesSnapshot() throws Exception {
+        try (LogRoomRepository repository = new LogRoomRepository(directory,
+                LogRoomRepository.FsyncPolicy.GROUP_COMMIT, 10, Duration.ofSeconds(1), 3)) {
+            repository.save(new Room("100", "Room1"));
+            Room room = repository.findById("100").orElseThrow();
+            room.addBooking(new Booking("1", "100", START, START.plusHours(1)));
+            room.addBooking(new Booking("2", "100", START.plusHours(2), START.plusHours(3)));
+            repository.save(room);
+            repository.awaitCompaction();
+
+            assertThat(repository.getLogRecordCount()).isZero();
+            room.removeBooking("2");
+            repository.save(room);
+        }
+
+        assertThat(Files.size(directory.resolve(LogRoomRepository.SNAPSHOT_FILE))).isEqualTo(3L * LogRecord.SIZE);
+        try (LogRoomRepository reopened = new LogRoomRepository(directory)) {
+            Room room = reopened.findById("100").orElseThrow();
+            assertThat(room.hasBooking("1")).isTrue();
+            assertThat(room.hasBooking("2")).isFalse();
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep bookings saved by other threads while a compaction is running")
+    void keepsBookingsSavedDuringCompaction() throws Exception {
+        int rooms = 4;
+        int bookingsPerRoom = 50;
+        try (LogRoomRepository repository = new LogRoomRepository(directory,
+                LogRoomRepository.FsyncPolicy.GROUP_COMMIT, 16, Duration.ofSeconds(1), 20)) {
+            for (int r = 0; r < rooms; r++) {
+                repository.save(new Room("r" + r, "Room" + r));
+            }
+            try (ExecutorService executor = Executors.newFixedThreadPool(rooms)) {
+                for (int r = 0; r < rooms; r++) {
+                    String roomId = "r" + r;
+                    executor.submit(() -> {
+                        for (int i = 0; i < bookingsPerRoom; i++) {
+                            Room room = repository.findById(roomId).orElseThrow();
+                            room.addBooking(new Booking(roomId + "-" + i, roomId,
+                                    START.plusHours(i), START.plusHours(i).plusMinutes(30)));
+                            repository.save(room);
+                        }
+                        return null;
+                    });
+                }
+            }
+        }
+
+        try (LogRoomRepository reopened = new LogRoomRepository(directory)) {
+            assertThat(reopened.findAll()).hasSize(rooms)
+                    .allSatisfy(room -> assertThat(room.getBookingCount()).isEqualTo(bookingsPerRoom));
+        }
+    }
+
+    @Test
+    @DisplayName("Should ignore a half-written record at the end of the log")
+    void ignoresTornTail() throws IOException {
+        try (LogRoomRepository repository = new LogRoomRepository(directory)) {
+            repository.save(new Room("100", "Room1"));
+        }
+        Files.write(directory.resolve(LogRoomRepository.LOG_FILE), new byte[LogRecord.SIZE / 2],
+                StandardOpenOption.APPEND);
+
+        try (LogRoomRepository reopened = new LogRoomRepository(directory)) {
+            assertThat(reopened.findAll()).extracting(Room::getId).containsExactly("100");
+            assertThat(reopened.getLogRecordCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Should drop a recurring booking whose rule record never reached the log")
+    void ignoresRecurringBookingWithoutRule() throws IOException {
+        try (LogRoomRepository repository = new LogRoomRepository(directory)) {
+            repository.save(new Room("100", "Room1"));
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(LogRecord.SIZE);
+        LogRecord.addRecurring(new RecurringBooking("weekly", "100", START, START.plusHours(1),
+                RecurrenceRule.times(RecurrenceRule.Frequency.WEEKLY, 1, 10))).writeTo(buffer);
+        Files.write(directory.resolve(LogRoomRepository.LOG_FILE), buffer.array(), StandardOpenOption.APPEND);
+
+        try (LogRoomRepository reopened = new LogRoomRepository(directory)) {
+            assertThat(reopened.findById("100").orElseThrow().getRecurringBookings()).isEmpty();
+            assertThat(reopened.getLogRecordCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject a stale save without writing to the log")
+    void rejectsStaleSave() throws IOException {
+        try (LogRoomRepository repository = new LogRoomRepository(directory,
+                LogRoomRepository.FsyncPolicy.INTERVAL, 1, Duration.ofMillis(10), 1_000)) {
+            repository.save(new Room("100", "Room1"));
+            Room stale = repository.findById("100").orElseThrow();
+            Room fresh = repository.findById("100").orElseThrow();
+            fresh.addBooking(new Booking("1", "100", START, START.plusHours(1)));
+            repository.save(fresh);
+            stale.addBooking(new Booking("2", "100", START, START.plusHours(1)));
+
+            assertThrows(IllegalStateException.class, () -> repository.save(stale));
+            assertThat(repository.getLogRecordCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    @DisplayName("Should sync a partly filled group commit once the maximum delay has passed")
+    void groupCommitSyncsAfterMaximumDelay() throws IOException {
+        try (LogRoomRepository repository = new LogRoomRepository(directory,
+                LogRoomRepository.FsyncPolicy.GROUP_COMMIT, 100, Duration.ofMillis(20), 1_000)) {
+            repository.save(new Room("100", "Room1"));
+
+            await().atMost(Duration.ofSeconds(2))
+                    .untilAsserted(() -> assertThat(repository.getUnsyncedRecordCount()).isZero());
+        }
+    }
+
+    @Test
+    @DisplayName("Should restore a room with its storage mode")
+    void restoresStorageMode() throws IOException {
+        try (LogRoomRepository repository = new LogRoomRepository(directory)) {
+            repository.save(new Room("100", "Room1", Room.Storage.COMPACT));
+            repository.save(new Room("200", "Room2"));
+        }
+
+        try (LogRoomRepository reopened = new LogRoomRepository(directory)) {
+            assertThat(reopened.findById("100").orElseThrow().getStorage()).isEqualTo(Room.Storage.COMPACT);
+            assertThat(reopened.findById("200").orElseThrow().getStorage()).isEqualTo(Room.Storage.INDEXED);
+        }
+    }
+}
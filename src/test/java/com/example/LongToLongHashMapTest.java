@@ -0,0 +1,36 @@
+package com.example;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongToLongHashMapTest {
+
+    @Test
+    @DisplayName("Should behave like a HashMap for random puts and removes, including colliding keys")
+    void matchesHashMap() {
+        Random random = new Random(3);
+        LongToLongHashMap map = new LongToLongHashMap(4);
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2_000) * 1024L;
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                map.put(key, i);
+                expected.put(key, (long) i);
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (long key = 0; key < 2_000 * 1024L; key += 1024) {
+            assertThat(map.get(key, -1)).isEqualTo(expected.getOrDefault(key, -1L));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ManualTimeProviderTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+    @Test
+    @DisplayName("Should only move when advanced and keep the epoch value in step with the time")
+    void advancesOnDemand() {
+        ManualTimeProvider timeProvider = new ManualTimeProvider(START);
+
+        timeProvider.advance(Duration.ofMinutes(90));
+
+        assertThat(timeProvider.getCurrentTime()).isEqualTo(START.plusMinutes(90));
+        assertThat(EpochNanos.toLocalDateTime(timeProvider.currentEpochNanos())).isEqualTo(START.plusMinutes(90));
+    }
+
+    @Test
+    @DisplayName("Should let BookingSystem reject bookings that start before the manual time")
+    void bookingSystemUsesEpochComparison() {
+        ManualTimeProvider timeProvider = new ManualTimeProvider(START);
+        InMemoryRoomRepository repository = new InMemoryRoomRepository();
+        repository.save(new Room("100", "Room1"));
+        BookingSystem bookingSystem = new BookingSystem(timeProvider, repository,
+                Mockito.mock(NotificationService.class));
+
+        assertThat(bookingSystem.bookRoom("100", START.plusHours(1), START.plusHours(2))).isTrue();
+
+        timeProvider.set(START.plusHours(3));
+
+        var exception = assertThrows(IllegalArgumentException.class,
+                () -> bookingSystem.bookRoom("100", START.plusHours(2).plusMinutes(30), START.plusHours(4)));
+        assertThat(exception).hasMessage("Kan inte boka tid i dåtid");
+    }
+}
@@ -0,0 +1,86 @@
+package com.example;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MonotonicBookingIdGeneratorTest {
+
+    @Test
+    @DisplayName("Should generate fixed-width ids that sort in the order they were created")
+    void idsAreSortable() {
+        MonotonicBookingIdGenerator generator = new MonotonicBookingIdGenerator();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(generator.nextId());
+        }
+
+        assertThat(ids).isSorted().doesNotHaveDuplicates();
+        assertThat(ids).allMatch(id -> id.length() == 13);
+    }
+
+    @Test
+    @DisplayName("Should keep increasing when several ids are created within the same millisecond")
+    void monotonicWithinSameMillisecond() {
+        MonotonicBookingIdGenerator generator = new MonotonicBookingIdGenerator(
+                Clock.fixed(Instant.parse("2030-01-01T00:00:00Z"), ZoneOffset.UTC));
+        long first = generator.nextValue();
+        long second = generator.nextValue();
+
+        assertThat(second).isGreaterThan(first);
+    }
+
+    @Test
+    @DisplayName("Should never hand out the same id to two threads and keep each thread's ids increasing")
+    void uniqueAcrossThreads() throws Exception {
+        MonotonicBookingIdGenerator generator = new MonotonicBookingIdGenerator(
+                Clock.fixed(Instant.parse("2030-01-01T00:00:00Z"), ZoneOffset.UTC));
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<List<String>>> perThread = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            perThread.add(executor.submit(() -> {
+                List<String> created = new ArrayList<>();
+                for (int i = 0; i < 10_000; i++) {
+                    created.add(generator.nextId());
+                }
+                ids.addAll(created);
+                return created;
+            }));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+
+        assertThat(ids).hasSize(80_000);
+        for (Future<List<String>> created : perThread) {
+            assertThat(created.get()).isSorted();
+        }
+    }
+
+    @Test
+    @DisplayName("Should decode an id back to the value it was encoded from")
+    void encodeDecodeRoundTrip() {
+        long value = new MonotonicBookingIdGenerator().nextValue();
+
+        String id = MonotonicBookingIdGenerator.encode(value);
+
+        assertThat(MonotonicBookingIdGenerator.isEncoded(id)).isTrue();
+        assertThat(MonotonicBookingIdGenerator.decode(id)).isEqualTo(value);
+        assertThat(MonotonicBookingIdGenerator.isEncoded("1")).isFalse();
+        assertThrows(IllegalArgumentException.class, () -> MonotonicBookingIdGenerator.decode("not-an-id-!!!"));
+    }
+}
@@ -1,5 +1,7 @@
 package com.example;
 
+import com.example.metrics.InMemoryMetricsSink;
+import com.example.money.Money;
 import com.example.payment.*;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -9,9 +11,13 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.math.BigDecimal;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.never;
@@ -20,6 +26,8 @@ import static org.mockito.Mockito.verify;
 @ExtendWith(MockitoExtension.class)
 class PaymentProcessorTest {
 
+    private static final String INSERT_PAYMENT = "INSERT INTO payments (amount, status) VALUES (?, ?)";
+
     @Mock
     private PaymentApi paymentApi;
 
@@ -42,7 +50,7 @@ class PaymentProcessorTest {
         boolean result = paymentProcessor.processPayment(amount);
 
         assertThat(result).isTrue();
-        verify(databaseConnection).executeUpdate(anyString());
+        verify(databaseConnection).executeUpdate(INSERT_PAYMENT, new BigDecimal("100.00"), "SUCCESS");
     }
 
     @Test
@@ -56,7 +64,7 @@ class PaymentProcessorTest {
         boolean result = paymentProcessor.processPayment(amount);
 
         assertThat(result).isTrue();
-        verify(databaseConnection).executeUpdate(anyString());
+        verify(databaseConnection).executeUpdate(INSERT_PAYMENT, new BigDecimal("100.00"), "SUCCESS");
         verify(emailService).sendPaymentConfirmation(email, amount);
     }
 
@@ -70,8 +78,83 @@ class PaymentProcessorTest {
         boolean result = paymentProcessor.processPayment(amount);
 
         assertThat(result).isFalse();
-        verify(databaseConnection, never()).executeUpdate(anyString());
+        verify(databaseConnection, never()).executeUpdate(anyString(), any(Object[].class));
         verify(emailService, never()).sendPaymentConfirmation(anyString(), anyDouble());
     }
 
+
+    @Test
+    @DisplayName("Should charge and store the exact amount when paying with Money")
+    void paymentWithMoney() {
+        Money amount = Money.ofMinor(12_345, Money.SEK);
+        Mockito.when(paymentApi.charge("sk_test_123456", 123.45)).thenReturn(new PaymentApiResponse(true));
+
+        boolean result = paymentProcessor.processPayment(amount);
+
+        assertThat(result).isTrue();
+        verify(databaseConnection).executeUpdate(INSERT_PAYMENT, new BigDecimal("123.45"), "SUCCESS");
+        verify(emailService).sendPaymentConfirmation("user@example.com", 123.45);
+    }
+
+    @Test
+    @DisplayName("Should write payments in batches through the write buffer and confirm them only once written")
+    void paymentsAreWrittenInBatches() throws Exception {
+        InMemoryMetricsSink metrics = new InMemoryMetricsSink();
+        Mockito.when(paymentApi.charge(Mockito.eq("sk_test_123456"), anyDouble())).thenReturn(new PaymentApiResponse(true));
+        try (PaymentWriteBuffer writeBuffer = new PaymentWriteBuffer(databaseConnection, 3)) {
+            paymentProcessor.setWriteBuffer(writeBuffer);
+            paymentProcessor.setMetricsSink(metrics);
+
+            CompletableFuture<Boolean> first = paymentProcessor.processPaymentAcknowledged(Money.ofMinor(100, Money.SEK));
+            boolean second = paymentProcessor.processPayment(2.0);
+
+            assertThat(second).isTrue();
+            assertThat(first).isNotDone();
+            verify(emailService, never()).sendPaymentConfirmation(anyString(), anyDouble());
+
+            CompletableFuture<Boolean> third = paymentProcessor.processPaymentAcknowledged(Money.ofMinor(300, Money.SEK));
+
+            assertThat(first.get()).isTrue();
+            assertThat(third.get()).isTrue();
+            verify(databaseConnection).executeBatch(Mockito.eq(INSERT_PAYMENT), Mockito.argThat((List<Object[]> rows) ->
+                    rows.size() == 3 && rows.get(1)[0].equals(new BigDecimal("2.00"))));
+            verify(databaseConnection, never()).executeUpdate(anyString(), any(Object[].class));
+            verify(emailService, Mockito.times(3)).sendPaymentConfirmation(anyString(), anyDouble());
+            assertThat(metrics.getHistogram("dependency.DatabaseConnection.executeBatch").getCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Should write the payment directly when the write buffer was closed before it could take the row")
+    void closedWriteBufferFallsBackToDirectWrite() throws Exception {
+        Mockito.when(paymentApi.charge("sk_test_123456", 100.0)).thenReturn(new PaymentApiResponse(true));
+        PaymentWriteBuffer writeBuffer = new PaymentWriteBuffer(databaseConnection, 3);
+        paymentProcessor.setWriteBuffer(writeBuffer);
+        writeBuffer.close();
+
+        CompletableFuture<Boolean> acknowledgement = paymentProcessor.processPaymentAcknowledged(Money.ofMinor(10_000, Money.SEK));
+
+        assertThat(acknowledgement).isCompletedWithValue(true);
+        verify(databaseConnection).executeUpdate(INSERT_PAYMENT, new BigDecimal("100.00"), "SUCCESS");
+        verify(emailService).sendPaymentConfirmation("user@example.com", 100.0);
+    }
+
+    @Test
+    @DisplayName("Should record payment latency, outcome and the time spent in each dependency")
+    void recordsPaymentMetrics() {
+        InMemoryMetricsSink metrics = new InMemoryMetricsSink();
+        paymentProcessor.setMetricsSink(metrics);
+        Mockito.when(paymentApi.charge("sk_test_123456", 100.0)).thenReturn(new PaymentApiResponse(true));
+        Mockito.when(paymentApi.charge("sk_test_123456", 50.0)).thenReturn(new PaymentApiResponse(false));
+
+        paymentProcessor.processPayment(100.0);
+        paymentProcessor.processPayment(50.0);
+
+        assertThat(metrics.getCount("payment.success")).isEqualTo(1);
+        assertThat(metrics.getCount("payment.declined")).isEqualTo(1);
+        assertThat(metrics.getHistogram("payment.processPayment").getCount()).isEqualTo(2);
+        assertThat(metrics.getHistogram("dependency.PaymentApi.charge").getCount()).isEqualTo(2);
+        assertThat(metrics.getHistogram("dependency.DatabaseConnection.executeUpdate").getCount()).isEqualTo(1);
+        assertThat(metrics.getHistogram("dependency.EmailService.sendPaymentConfirmation").getCount()).isEqualTo(1);
+    }
 }
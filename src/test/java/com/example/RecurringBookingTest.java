@@ -0,0 +1,78 @@
+package com.example;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RecurringBookingTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 7, 9, 0);
+
+    @Test
+    @DisplayName("Should expand only the occurrences that overlap the requested window")
+    void expandsOccurrencesInWindow() {
+        RecurringBooking weekly = new RecurringBooking("r1", "100", START, START.plusHours(1),
+                RecurrenceRule.times(RecurrenceRule.Frequency.WEEKLY, 1, 104));
+
+        assertThat(weekly.getOccurrences(START.plusWeeks(50).minusMinutes(30), START.plusWeeks(52)))
+                .extracting(Booking::getStartTime)
+                .containsExactly(START.plusWeeks(50), START.plusWeeks(51), START.plusWeeks(52));
+        assertThat(weekly.getOccurrences(START.plusWeeks(200), START.plusWeeks(210))).isEmpty();
+        assertThat(weekly.getOccurrences()).hasSize(104);
+    }
+
+    @Test
+    @DisplayName("Should stop at the until date and honour the interval")
+    void untilAndInterval() {
+        RecurringBooking everyOtherDay = new RecurringBooking("r1", "100", START, START.plusHours(1),
+                RecurrenceRule.until(RecurrenceRule.Frequency.DAILY, 2, START.plusDays(6)));
+
+        assertThat(everyOtherDay.getOccurrences())
+                .extracting(Booking::getStartTime)
+                .containsExactly(START, START.plusDays(2), START.plusDays(4), START.plusDays(6));
+        assertThat(everyOtherDay.isOccurrence(START.plusDays(4))).isTrue();
+        assertThat(everyOtherDay.isOccurrence(START.plusDays(3))).isFalse();
+        assertThat(everyOtherDay.isOccurrence(START.plusDays(8))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should keep monthly occurrences on the same day of month and clamp it in short months")
+    void monthlyOccurrences() {
+        LocalDateTime endOfMonth = LocalDateTime.of(2030, 1, 31, 9, 0);
+        RecurringBooking monthly = new RecurringBooking("r1", "100", endOfMonth, endOfMonth.plusHours(1),
+                RecurrenceRule.times(RecurrenceRule.Frequency.MONTHLY, 1, 3));
+
+        assertThat(monthly.getOccurrences())
+                .extracting(Booking::getStartTime)
+                .containsExactly(endOfMonth, LocalDateTime.of(2030, 2, 28, 9, 0), LocalDateTime.of(2030, 3, 31, 9, 0));
+        assertThat(monthly.getOccurrences(LocalDateTime.of(2030, 3, 1, 0, 0), LocalDateTime.of(2030, 4, 1, 0, 0)))
+                .extracting(Booking::getStartTime)
+                .containsExactly(LocalDateTime.of(2030, 3, 31, 9, 0));
+    }
+
+    @Test
+    @DisplayName("Should leave out occurrences that have been cancelled as exceptions")
+    void exceptionsAreSkipped() {
+        RecurringBooking weekly = new RecurringBooking("r1", "100", START, START.plusHours(1),
+                RecurrenceRule.times(RecurrenceRule.Frequency.WEEKLY, 1, 3))
+                .withException(START.plusWeeks(1));
+
+        assertThat(weekly.getOccurrences())
+                .extracting(Booking::getStartTime)
+                .containsExactly(START, START.plusWeeks(2));
+        assertThat(weekly.isOccurrence(START.plusWeeks(1))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should reject a rule without an end")
+    void ruleMustBeBounded() {
+        var exception = assertThrows(IllegalArgumentException.class,
+                () -> new RecurrenceRule(RecurrenceRule.Frequency.WEEKLY, 1, null, 0));
+
+        assertThat(exception).hasMessage("Upprepningen måste ha ett slutdatum eller ett antal tillfällen");
+    }
+}
@@ -0,0 +1,230 @@
+package com.example;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RoomTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+    @Test
+    @DisplayName("Should report a room as unavailable when a long booking started well before the requested time")
+    void longBookingBlocksLaterRequest() {
+        Room room = new Room("100", "Room1");
+        room.addBooking(new Booking("1", "100", START, START.plusDays(3)));
+        room.addBooking(new Booking("2", "100", START.plusDays(4), START.plusDays(4).plusHours(1)));
+
+        assertThat(room.isAvailable(START.plusDays(2), START.plusDays(2).plusHours(1))).isFalse();
+        assertThat(room.isAvailable(START.plusDays(3).plusHours(1), START.plusDays(3).plusHours(2))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should treat a booking ending exactly at the requested start time as overlapping")
+    void touchingBookingsOverlap() {
+        Room room = new Room("100", "Room1");
+        room.addBooking(new Booking("1", "100", START, START.plusHours(1)));
+
+        assertThat(room.isAvailable(START.plusHours(1), START.plusHours(2))).isFalse();
+        assertThat(room.isAvailable(START.minusHours(1), START)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should keep bookings with identical start times apart")
+    void bookingsWithSameStartTime() {
+        Room room = new Room("100", "Room1");
+        room.addBooking(new Booking("1", "100", START, START.plusHours(1)));
+        room.addBooking(new Booking("2", "100", START, START.plusHours(1)));
+
+        assertThat(room.hasBooking("1")).isTrue();
+        assertThat(room.hasBooking("2")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should find the first start time after the bookings that leaves room for the requested duration")
+    void nextAvailableStartSkipsBookings() {
+        Room room = new Room("100", "Room1");
+        room.addBooking(new Booking("1", "100", START, START.plusHours(1)));
+        room.addBooking(new Booking("2", "100", START.plusHours(1).plusMinutes(30), START.plusHours(2)));
+
+        LocalDateTime next = room.nextAvailableStart(START, Duration.ofHours(1));
+
+        assertThat(next).isEqualTo(START.plusHours(2).plusNanos(1));
+        assertThat(room.isAvailable(next, next.plusHours(1))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should return the earliest start unchanged when the room is free")
+    void nextAvailableStartWhenFree() {
+        Room room = new Room("100", "Room1");
+        room.addBooking(new Booking("1", "100", START.plusHours(3), START.plusHours(4)));
+
+        assertThat(room.nextAvailableStart(START, Duration.ofHours(1))).isEqualTo(START);
+    }
+
+    @Test
+    @DisplayName("Should free the time slot and forget the id when a booking is removed")
+    void removeBookingFreesSlot() {
+        Room room = new Room("100", "Room1");
+        room.addBooking(new Booking("1", "100", START, START.plusHours(1)));
+
+        room.removeBooking("1");
+
+        assertThat(room.hasBooking("1")).isFalse();
+        assertThat(room.isAvailable(START, START.plusHours(1))).isTrue();
+    }
+
+    @ParameterizedTest
+    @EnumSource(Room.Storage.class)
+    @DisplayName("Should keep bookings in start time order and look them up by id in every storage mode")
+    void storageModesKeepBookingsOrdered(Room.Storage storage) {
+        Room room = new Room("100", "Room1", storage);
+        String generatedId = new MonotonicBookingIdGenerator().nextId();
+        room.addBooking(new Booking(generatedId, "100", START.plusHours(2), START.plusHours(3)));
+        room.addBooking(new Booking("manual", "100", START, START.plusHours(1)));
+
+        assertThat(room.getBookings()).extracting(Booking::getId).containsExactly("manual", generatedId);
+        assertThat(room.getBooking(generatedId).getEndTime()).isEqualTo(START.plusHours(3));
+        assertThat(room.hasBooking("manual")).isTrue();
+
+        room.removeBooking(generatedId);
+
+        assertThat(room.hasBooking(generatedId)).isFalse();
+        assertThat(room.getBookingCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should give the same availability answers in compact storage as in indexed storage")
+    void compactStorageMatchesIndexedStorage() {
+        Random random = new Random(7);
+        MonotonicBookingIdGenerator generator = new MonotonicBookingIdGenerator();
+        Room indexed = new Room("100", "Room1");
+        Room compact = new Room("100", "Room1", Room.Storage.COMPACT);
+        for (int i = 0; i < 500; i++) {
+            LocalDateTime startTime = START.plusMinutes(random.nextInt(30 * 24 * 60)).plusNanos(random.nextInt(1000));
+            Booking booking = new Booking(generator.nextId(), "100", startTime,
+                    startTime.plusMinutes(1 + random.nextInt(240)));
+            indexed.addBooking(booking);
+            compact.addBooking(booking);
+        }
+        for (int q = 0; q < 1000; q++) {
+            LocalDateTime startTime = START.plusMinutes(random.nextInt(30 * 24 * 60));
+            LocalDateTime endTime = startTime.plusMinutes(random.nextInt(120));
+
+            assertThat(compact.isAvailable(startTime, endTime)).isEqualTo(indexed.isAvailable(startTime, endTime));
+            assertThat(compact.nextAvailableStart(startTime, Duration.ofMinutes(30)))
+                    .isEqualTo(indexed.nextAvailableStart(startTime, Duration.ofMinutes(30)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should match a scan of every booking after random bookings and cancellations, including long ones")
+    void indexedStorageMatchesScanAfterCancellations() {
+        Random random = new Random(11);
+        Room room = new Room("100", "Room1");
+        List<Booking> live = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            if (!live.isEmpty() && random.nextInt(3) == 0) {
+                Booking cancelled = live.remove(random.nextInt(live.size()));
+                room.removeBooking(cancelled.getId());
+            } else {
+                LocalDateTime startTime = START.plusMinutes(random.nextInt(30 * 24 * 60));
+                // Enstaka mycket långa bokningar får inte göra senare sökningar långsamma eller felaktiga
+                long minutes = random.nextInt(50) == 0 ? 20 * 24 * 60 : 1 + random.nextInt(240);
+                Booking booking = new Booking("b" + i, "100", startTime, startTime.plusMinutes(minutes));
+                room.addBooking(booking);
+                live.add(booking);
+            }
+        }
+        for (int q = 0; q < 500; q++) {
+            LocalDateTime from = START.plusMinutes(random.nextInt(30 * 24 * 60));
+            LocalDateTime to = from.plusMinutes(random.nextInt(600));
+            List<Booking> expected = live.stream()
+                    .filter(booking -> booking.overlaps(from, to))
+                    .sorted(Booking.BY_START_TIME)
+                    .toList();
+            List<Booking> actual = new ArrayList<>();
+            room.getBookings(from, to, null).forEachRemaining(actual::add);
+
+            assertThat(actual).isEqualTo(expected);
+            assertThat(room.isAvailable(from, to)).isEqualTo(expected.isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("Should answer open-ended queries in compact storage but only store bookings within 1678-2262")
+    void compactStorageTimeRange() {
+        Room room = new Room("100", "Room1", Room.Storage.COMPACT);
+        room.addBooking(new Booking("1", "100", START, START.plusHours(1)));
+
+        assertThat(room.isAvailable(START.plusHours(2), LocalDateTime.MAX)).isTrue();
+        assertThat(room.isAvailable(LocalDateTime.MIN, START)).isFalse();
+        assertThat(room.getBookings(LocalDateTime.MIN, LocalDateTime.MAX).map(Booking::getId)).containsExactly("1");
+
+        var exception = assertThrows(IllegalArgumentException.class,
+                () -> room.addBooking(new Booking("2", "100", START, LocalDateTime.MAX)));
+        assertThat(exception).hasMessageStartingWith("Tiden ligger utanför det stödda intervallet");
+    }
+
+    @ParameterizedTest
+    @EnumSource(Room.Storage.class)
+    @DisplayName("Should list only bookings overlapping the window, including a long booking that started before it")
+    void getBookingsInRange(Room.Storage storage) {
+        Room room = new Room("100", "Room1", storage);
+        room.addBooking(new Booking("1", "100", START.minusDays(2), START.plusHours(2)));
+        room.addBooking(new Booking("2", "100", START.minusHours(3), START.minusHours(2)));
+        room.addBooking(new Booking("3", "100", START.plusHours(1), START.plusHours(3)));
+        room.addBooking(new Booking("4", "100", START.plusHours(4), START.plusHours(5)));
+        room.addBooking(new Booking("5", "100", START.plusHours(5), START.plusHours(6)));
+
+        assertThat(room.getBookings(START, START.plusHours(4)).map(Booking::getId))
+                .containsExactly("1", "3", "4");
+    }
+
+    @ParameterizedTest
+    @EnumSource(Room.Storage.class)
+    @DisplayName("Should treat occurrences of a recurring booking as booked and list them among the bookings")
+    void recurringBookingsBlockAndAreListed(Room.Storage storage) {
+        Room room = new Room("100", "Room1", storage);
+        room.addBooking(new Booking("1", "100", START.plusDays(1), START.plusDays(1).plusHours(1)));
+        room.addRecurringBooking(new RecurringBooking("r1", "100", START, START.plusHours(1),
+                RecurrenceRule.times(RecurrenceRule.Frequency.DAILY, 2, 50)));
+
+        assertThat(room.isAvailable(START.plusDays(40).plusMinutes(30), START.plusDays(40).plusHours(2))).isFalse();
+        assertThat(room.isAvailable(START.plusDays(41), START.plusDays(41).plusHours(2))).isTrue();
+        assertThat(room.getBookings(START, START.plusDays(2).plusHours(1)).map(Booking::getId))
+                .containsExactly("r1#0", "1", "r1#1");
+        assertThat(room.getBookingCount()).isEqualTo(1);
+
+        room.addOccurrenceException("r1", START.plusDays(40));
+
+        assertThat(room.isAvailable(START.plusDays(40).plusMinutes(30), START.plusDays(40).plusHours(2))).isTrue();
+    }
+
+    @ParameterizedTest
+    @EnumSource(Room.Storage.class)
+    @DisplayName("Should keep a copy and its original apart once either of them is changed")
+    void copiesAreIndependent(Room.Storage storage) {
+        Room original = new Room("100", "Room1", storage);
+        original.addBooking(new Booking("b1", "100", START, START.plusHours(1)));
+        Room copy = original.copy();
+
+        copy.addBooking(new Booking("b2", "100", START.plusHours(2), START.plusHours(3)));
+        original.removeBooking("b1");
+
+        assertThat(original.getBookings()).isEmpty();
+        assertThat(copy.getBookings()).extracting(Booking::getId).containsExactly("b1", "b2");
+        assertThat(copy.isAvailable(START, START.plusMinutes(30))).isFalse();
+        assertThat(original.isAvailable(START, START.plusMinutes(30))).isTrue();
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.benchmark;
+
+import com.example.Booking;
+import com.example.NotificationService;
+
+final class BenchmarkFixtures {
+
+    static final NotificationService NO_NOTIFICATIONS = new NotificationService() {
+        @Override
+        public void sendBookingConfirmation(Booking booking) {
+        }
+
+        @Override
+        public void sendCancellationConfirmation(Booking booking) {
+        }
+    };
+
+    private BenchmarkFixtures() {
+    }
+}
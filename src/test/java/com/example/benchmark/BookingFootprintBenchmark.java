@@ -0,0 +1,44 @@
+package com.example.benchmark;
+
+import com.example.Booking;
+import com.example.MonotonicBookingIdGenerator;
+import com.example.Room;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDateTime;
+
+public class BookingFootprintBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+    public static void main(String[] args) throws InterruptedException {
+        int bookingCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.printf("%-10s %12s %16s %14s%n", "Storage", "Bookings", "Retained bytes", "Bytes/booking");
+        for (Room.Storage storage : Room.Storage.values()) {
+            long before = usedHeapAfterGc();
+            Room room = fill(new Room("100", "Room1", storage), bookingCount);
+            long bytes = usedHeapAfterGc() - before;
+            System.out.printf("%-10s %12d %16d %14.1f%n", storage, room.getBookingCount(), bytes,
+                    (double) bytes / bookingCount);
+        }
+    }
+
+    private static Room fill(Room room, int bookingCount) {
+        MonotonicBookingIdGenerator generator = new MonotonicBookingIdGenerator();
+        for (int i = 0; i < bookingCount; i++) {
+            LocalDateTime startTime = START.plusMinutes(30L * i);
+            room.addBooking(new Booking(generator.nextId(), room.getId(), startTime, startTime.plusMinutes(25)));
+        }
+        return room;
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.benchmark;
+
+import com.example.MonotonicBookingIdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingIdBenchmark {
+
+    MonotonicBookingIdGenerator generator = new MonotonicBookingIdGenerator();
+
+    @Benchmark
+    @Threads(1)
+    public String randomUuid() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String monotonic() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String randomUuidAllCores() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String monotonicAllCores() {
+        return generator.nextId();
+    }
+}
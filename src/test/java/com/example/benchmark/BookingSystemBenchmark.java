@@ -0,0 +1,170 @@
+package com.example.benchmark;
+
+import com.example.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingSystemBenchmark {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private static final int FAR_FUTURE_HOURS = 1_000_000;
+
+    @Param({"100", "1000", "10000"})
+    int roomCount;
+
+    @Param({"10", "100"})
+    int bookingsPerRoom;
+
+    BookingSystem bookingSystem;
+    BookingSystem indexedBookingSystem;
+
+    // Varje tråd går igenom sina egna lediga tider, så bookRoom mäter lyckade bokningar i stället för krockar
+    @State(Scope.Thread)
+    public static class FreeSlots {
+        long next;
+        int stride;
+
+        @Setup(Level.Iteration)
+        public void setUp(ThreadParams threads) {
+            next = threads.getThreadIndex();
+            stride = threads.getThreadCount();
+        }
+    }
+
+    // Rummen byggs om inför varje iteration så att bokningarna från förra iterationen inte ligger kvar
+    @Setup(Level.Iteration)
+    public void setUp() {
+        InMemoryRoomRepository repository = new InMemoryRoomRepository();
+        for (int i = 0; i < roomCount; i++) {
+            Room room = new Room("room-" + i, "Room" + i);
+            for (int j = 0; j < bookingsPerRoom; j++) {
+                LocalDateTime startTime = NOW.plusHours(2L * j);
+                room.addBooking(new Booking(i + "-" + j, room.getId(), startTime, startTime.plusHours(1)));
+            }
+            repository.save(room);
+        }
+        bookingSystem = new BookingSystem(new ManualTimeProvider(NOW), repository,
+                BenchmarkFixtures.NO_NOTIFICATIONS);
+        AvailabilityIndex index = new AvailabilityIndex(Duration.ofMinutes(15));
+        index.addRooms(repository.findAll());
+        indexedBookingSystem = new BookingSystem(new ManualTimeProvider(NOW), repository,
+                BenchmarkFixtures.NO_NOTIFICATIONS);
+        indexedBookingSystem.setAvailabilityIndex(index);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean bookRoom(FreeSlots slots) {
+        return bookFreeSlot(slots);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean bookRoomFourThreads(FreeSlots slots) {
+        return bookFreeSlot(slots);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean bookRoomAllCores(FreeSlots slots) {
+        return bookFreeSlot(slots);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean bookRoomConflict() {
+        return bookTakenSlot();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<Room> getAvailableRooms() {
+        return findInRandomWindow();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public List<Room> getAvailableRoomsAllCores() {
+        return findInRandomWindow();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<AvailableSlot> findNextAvailable() {
+        return findSlotsInRandomWindow(Duration.ofMinutes(30));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<AvailableSlot> findNextAvailableLongerThanGaps() {
+        // Luckorna mellan bokningarna är en timme, så varje rum måste gås igenom förbi sin sista bokning
+        return findSlotsInRandomWindow(Duration.ofMinutes(90));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<AvailableSlot> findNextAvailableIndexed() {
+        // Halva fönstren startar i en ledig timme, där indexet ensamt räcker för svaret
+        LocalDateTime earliestStart = NOW.plusHours(ThreadLocalRandom.current().nextInt(2 * bookingsPerRoom))
+                .plusMinutes(15);
+        return indexedBookingSystem.findNextAvailable(Duration.ofMinutes(30), earliestStart,
+                earliestStart.plusDays(30), null, 10);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean bookThenCancel() {
+        return bookAndCancelFarFuture();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean bookThenCancelAllCores() {
+        return bookAndCancelFarFuture();
+    }
+
+    private boolean bookFreeSlot(FreeSlots slots) {
+        // Tiderna efter de befintliga bokningarna delas ut rum för rum, en halvtimme i taget med luckor emellan
+        long slot = slots.next;
+        slots.next += slots.stride;
+        LocalDateTime startTime = NOW.plusHours(2L * bookingsPerRoom + slot / roomCount);
+        return bookingSystem.bookRoom("room-" + slot % roomCount, startTime, startTime.plusMinutes(30));
+    }
+
+    private boolean bookTakenSlot() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDateTime startTime = NOW.plusHours(2L * random.nextInt(bookingsPerRoom));
+        return bookingSystem.bookRoom("room-" + random.nextInt(roomCount), startTime, startTime.plusMinutes(30));
+    }
+
+    private List<Room> findInRandomWindow() {
+        LocalDateTime startTime = NOW.plusHours(ThreadLocalRandom.current().nextInt(2 * bookingsPerRoom));
+        return bookingSystem.getAvailableRooms(startTime, startTime.plusMinutes(30));
+    }
+
+    private List<AvailableSlot> findSlotsInRandomWindow(Duration duration) {
+        LocalDateTime earliestStart = NOW.plusHours(ThreadLocalRandom.current().nextInt(2 * bookingsPerRoom));
+        return bookingSystem.findNextAvailable(duration, earliestStart, earliestStart.plusDays(30), null, 10);
+    }
+
+    private boolean bookAndCancelFarFuture() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDateTime startTime = NOW.plusHours(FAR_FUTURE_HOURS + random.nextInt(FAR_FUTURE_HOURS));
+        BookingRequest request = new BookingRequest("room-" + random.nextInt(roomCount),
+                startTime, startTime.plusMinutes(30));
+        BookingResult result = bookingSystem.bookRooms(List.of(request)).getFirst();
+        return result.isSuccessful() && bookingSystem.cancelBooking(result.booking().getId());
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.benchmark;
+
+import com.example.money.Money;
+import com.example.shop.ConcurrentShoppingCart;
+import com.example.shop.Item;
+import com.example.shop.ShoppingCart;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentShoppingCartBenchmark {
+
+    // Referenspunkten: samma kundvagn där varje anrop tar ett gemensamt monitorlås
+    static final class SynchronizedShoppingCart {
+        private final ShoppingCart cart = new ShoppingCart();
+
+        synchronized void addItem(Item item) {
+            cart.addItem(item);
+        }
+
+        synchronized Money getTotal() {
+            return cart.getTotal();
+        }
+
+        synchronized List<Item> getItems() {
+            return cart.getItems();
+        }
+    }
+
+    @Param({"1000"})
+    int cartSize;
+
+    Item[] items;
+    ConcurrentShoppingCart concurrentCart;
+    SynchronizedShoppingCart synchronizedCart;
+
+    @Setup
+    public void setUp() {
+        items = new Item[cartSize];
+        concurrentCart = new ConcurrentShoppingCart();
+        synchronizedCart = new SynchronizedShoppingCart();
+        for (int i = 0; i < cartSize; i++) {
+            items[i] = new Item(String.valueOf(i), Money.ofMinor(1_000 + i, Money.SEK), 1);
+            concurrentCart.addItem(items[i]);
+            synchronizedCart.addItem(items[i]);
+        }
+    }
+
+    @Benchmark
+    @Group("concurrent")
+    @GroupThreads(3)
+    public void concurrentAdd() {
+        concurrentCart.addItem(randomItem());
+    }
+
+    @Benchmark
+    @Group("concurrent")
+    @GroupThreads(1)
+    public Money concurrentTotal() {
+        return concurrentCart.getTotal();
+    }
+
+    @Benchmark
+    @Group("synchronized")
+    @GroupThreads(3)
+    public void synchronizedAdd() {
+        synchronizedCart.addItem(randomItem());
+    }
+
+    @Benchmark
+    @Group("synchronized")
+    @GroupThreads(1)
+    public Money synchronizedTotal() {
+        return synchronizedCart.getTotal();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void concurrentAddAllCores() {
+        concurrentCart.addItem(randomItem());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void synchronizedAddAllCores() {
+        synchronizedCart.addItem(randomItem());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<Item> concurrentSnapshot() {
+        return concurrentCart.getItems();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<Item> synchronizedSnapshot() {
+        return synchronizedCart.getItems();
+    }
+
+    private Item randomItem() {
+        return items[ThreadLocalRandom.current().nextInt(cartSize)];
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.benchmark;
+
+import com.example.metrics.LatencyHistogram;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LatencyHistogramBenchmark {
+
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    @Benchmark
+    @Threads(1)
+    public void record() {
+        histogram.record(ThreadLocalRandom.current().nextLong(1_000, 1_000_000));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void recordAllCores() {
+        histogram.record(ThreadLocalRandom.current().nextLong(1_000, 1_000_000));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.benchmark;
+
+import com.example.money.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    private static final int DISCOUNT_PERCENT = 15;
+
+    @Param({"1000"})
+    int lines;
+
+    double[] doublePrices;
+    BigDecimal[] bigDecimalPrices;
+    Money[] moneyPrices;
+    int[] quantities;
+
+    @Setup
+    public void setUp() {
+        doublePrices = new double[lines];
+        bigDecimalPrices = new BigDecimal[lines];
+        moneyPrices = new Money[lines];
+        quantities = new int[lines];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < lines; i++) {
+            long minorUnits = random.nextLong(1, 1_000_000);
+            doublePrices[i] = minorUnits / 100.0;
+            bigDecimalPrices[i] = BigDecimal.valueOf(minorUnits, 2);
+            moneyPrices[i] = Money.ofMinor(minorUnits, Money.SEK);
+            quantities[i] = random.nextInt(1, 10);
+        }
+    }
+
+    @Benchmark
+    public double cartTotalDouble() {
+        double total = 0;
+        for (int i = 0; i < lines; i++) {
+            total += doublePrices[i] * quantities[i];
+        }
+        return total - total * DISCOUNT_PERCENT / 100;
+    }
+
+    @Benchmark
+    public BigDecimal cartTotalBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            total = total.add(bigDecimalPrices[i].multiply(BigDecimal.valueOf(quantities[i])));
+        }
+        BigDecimal discount = total.multiply(BigDecimal.valueOf(DISCOUNT_PERCENT)).divide(HUNDRED, 2, RoundingMode.HALF_EVEN);
+        return total.subtract(discount);
+    }
+
+    @Benchmark
+    public Money cartTotalMoney() {
+        Money total = Money.zero(Money.SEK);
+        for (int i = 0; i < lines; i++) {
+            total = total.plus(moneyPrices[i].times(quantities[i]));
+        }
+        return total.minus(total.percentage(DISCOUNT_PERCENT, RoundingMode.HALF_EVEN));
+    }
+
+    @Benchmark
+    public Money cartTotalMinorUnits() {
+        // Samma ackumulering som ShoppingCart gör för sin delsumma
+        long total = 0;
+        for (int i = 0; i < lines; i++) {
+            total = Math.addExact(total, Math.multiplyExact(moneyPrices[i].minorUnits(), (long) quantities[i]));
+        }
+        Money subtotal = Money.ofMinor(total, Money.SEK);
+        return subtotal.minus(subtotal.percentage(DISCOUNT_PERCENT, RoundingMode.HALF_EVEN));
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.benchmark;
+
+import com.example.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelAvailabilityBenchmark {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private static final int BOOKINGS_PER_ROOM = 20;
+
+    // Skärningspunkten syns genom att jämföra raderna för samma antal rum
+    @Param({"500", "2000", "10000", "50000"})
+    int roomCount;
+
+    // calibrated är standardläget, där tröskeln mäts upp under körningen
+    @Param({"sequential", "parallel", "calibrated"})
+    String mode;
+
+    BookingSystem bookingSystem;
+
+    @Setup
+    public void setUp() {
+        InMemoryRoomRepository repository = new InMemoryRoomRepository();
+        for (int i = 0; i < roomCount; i++) {
+            Room room = new Room("room-" + i, "Room" + i);
+            for (int j = 0; j < BOOKINGS_PER_ROOM; j++) {
+                LocalDateTime startTime = NOW.plusHours(2L * j);
+                room.addBooking(new Booking(i + "-" + j, room.getId(), startTime, startTime.plusHours(1)));
+            }
+            repository.save(room);
+        }
+        bookingSystem = new BookingSystem(new ManualTimeProvider(NOW), repository,
+                BenchmarkFixtures.NO_NOTIFICATIONS);
+        switch (mode) {
+            case "sequential" -> bookingSystem.setParallelThreshold(Integer.MAX_VALUE);
+            case "parallel" -> bookingSystem.setParallelThreshold(0);
+            default -> {
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Room> getAvailableRooms() {
+        LocalDateTime startTime = NOW.plusHours(ThreadLocalRandom.current().nextInt(2 * BOOKINGS_PER_ROOM));
+        return bookingSystem.getAvailableRooms(startTime, startTime.plusMinutes(30));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.benchmark;
+
+import com.example.metrics.InMemoryMetricsSink;
+import com.example.payment.DatabaseConnection;
+import com.example.payment.EmailService;
+import com.example.payment.PaymentApi;
+import com.example.payment.PaymentApiResponse;
+import com.example.payment.PaymentProcessor;
+import com.example.payment.PaymentWriteBuffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentProcessorBenchmark {
+
+    private static final PaymentApiResponse SUCCESS = new PaymentApiResponse(true);
+
+    @Param({"false", "true"})
+    boolean metrics;
+
+    // 0 betyder att varje betalning skrivs direkt, annars används skrivbufferten med den batchstorleken
+    @Param({"0", "100"})
+    int batchSize;
+
+    // Simulerad tid för ett anrop till databasen
+    @Param({"0", "20000"})
+    long roundTripNanos;
+
+    final LongAdder roundTrips = new LongAdder();
+    final LongAdder emails = new LongAdder();
+    PaymentProcessor paymentProcessor;
+    PaymentWriteBuffer writeBuffer;
+
+    @Setup
+    public void setUp() {
+        PaymentApi paymentApi = (apiKey, amount) -> SUCCESS;
+        DatabaseConnection databaseConnection = new DatabaseConnection() {
+            @Override
+            public void executeUpdate(String query) {
+                roundTrip();
+            }
+
+            @Override
+            public void executeUpdate(String statement, Object... parameters) {
+                roundTrip();
+            }
+
+            @Override
+            public void executeBatch(String statement, List<Object[]> parameterSets) {
+                roundTrip();
+            }
+        };
+        EmailService emailService = (email, amount) -> emails.increment();
+        paymentProcessor = new PaymentProcessor(databaseConnection, emailService, paymentApi);
+        if (metrics) {
+            paymentProcessor.setMetricsSink(new InMemoryMetricsSink());
+        }
+        if (batchSize > 0) {
+            writeBuffer = new PaymentWriteBuffer(databaseConnection, batchSize);
+            writeBuffer.start(Duration.ofMillis(10));
+            paymentProcessor.setWriteBuffer(writeBuffer);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        if (writeBuffer != null) {
+            writeBuffer.close();
+        }
+    }
+
+    private void roundTrip() {
+        roundTrips.increment();
+        long deadline = System.nanoTime() + roundTripNanos;
+        while (System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean processPayment() {
+        return paymentProcessor.processPayment(randomAmount());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean processPaymentAllCores() {
+        return paymentProcessor.processPayment(randomAmount());
+    }
+
+    private static double randomAmount() {
+        return ThreadLocalRandom.current().nextInt(1, 100_000) / 100.0;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.benchmark;
+
+import com.example.money.Money;
+import com.example.shop.BuyXGetYDiscount;
+import com.example.shop.CouponDiscount;
+import com.example.shop.DiscountProvider;
+import com.example.shop.Item;
+import com.example.shop.ItemPercentageDiscount;
+import com.example.shop.LineDiscount;
+import com.example.shop.PricingEngine;
+import com.example.shop.ShoppingCart;
+import com.example.shop.TieredDiscount;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingEngineBenchmark {
+
+    @Param({"100"})
+    int rules;
+
+    @Param({"1000"})
+    int cartSize;
+
+    PricingEngine engine;
+    ShoppingCart cart;
+    List<Item> lines;
+
+    @Setup
+    public void setUp() {
+        List<LineDiscount> lineRules = new ArrayList<>();
+        List<DiscountProvider> cartRules = new ArrayList<>();
+        // Ungefär som en riktig kampanjperiod: mest varurabatter, några paketpriser och ett par kundvagnsregler
+        for (int i = 0; i < rules; i++) {
+            switch (i % 10) {
+                case 0 -> lineRules.add(new BuyXGetYDiscount(String.valueOf(i * 7 % cartSize), 2, 1));
+                case 1 -> cartRules.add(i == 1
+                        ? new TieredDiscount(List.of(new TieredDiscount.Tier(Money.ofMinor(100_000, Money.SEK), 5),
+                        new TieredDiscount.Tier(Money.ofMinor(1_000_000, Money.SEK), 10)), RoundingMode.HALF_EVEN)
+                        : new CouponDiscount("C" + i, Money.ofMinor(100, Money.SEK)));
+                case 2 -> lineRules.add(new ItemPercentageDiscount(Set.of(), 1, RoundingMode.HALF_EVEN));
+                default -> lineRules.add(new ItemPercentageDiscount(
+                        Set.of(String.valueOf(i % cartSize), String.valueOf((i * 13) % cartSize)), 10, RoundingMode.HALF_EVEN));
+            }
+        }
+        engine = PricingEngine.compile(lineRules, cartRules);
+
+        cart = new ShoppingCart();
+        cart.setPricingEngine(engine);
+        for (int i = 0; i < cartSize; i++) {
+            cart.addItem(new Item(String.valueOf(i), Money.ofMinor(1_000 + i, Money.SEK), 3));
+        }
+        lines = cart.getItems();
+    }
+
+    @Benchmark
+    public Money updateOneLine() {
+        int id = ThreadLocalRandom.current().nextInt(cartSize);
+        cart.updateQuantity(String.valueOf(id), ThreadLocalRandom.current().nextInt(1, 10));
+        return cart.getTotal();
+    }
+
+    @Benchmark
+    public Money cachedTotal() {
+        return cart.getTotal();
+    }
+
+    @Benchmark
+    public Money fullEvaluation() {
+        return engine.price(lines, Money.SEK);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.benchmark;
+
+import com.example.Booking;
+import com.example.Room;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoomAvailabilityBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+    @Param({"10000", "100000"})
+    int bookingCount;
+
+    Room room;
+    Set<Booking> linearBookings;
+    LocalDateTime queryStart;
+    LocalDateTime queryEnd;
+
+    @Setup
+    public void setUp() {
+        room = new Room("100", "Room1");
+        linearBookings = new HashSet<>();
+        for (int i = 0; i < bookingCount; i++) {
+            LocalDateTime startTime = START.plusHours(2L * i);
+            Booking booking = new Booking(String.valueOf(i), "100", startTime, startTime.plusHours(1));
+            room.addBooking(booking);
+            linearBookings.add(booking);
+        }
+        LocalDateTime middle = START.plusHours(bookingCount).plusMinutes(70);
+        queryStart = middle;
+        queryEnd = middle.plusMinutes(30);
+    }
+
+    @Benchmark
+    public boolean indexedIsAvailable() {
+        return room.isAvailable(queryStart, queryEnd);
+    }
+
+    @Benchmark
+    public boolean linearIsAvailable() {
+        return linearBookings.stream()
+                .noneMatch(booking -> booking.overlaps(queryStart, queryEnd));
+    }
+
+    @Benchmark
+    public LocalDateTime indexedNextAvailableStart() {
+        return room.nextAvailableStart(START, Duration.ofMinutes(30));
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.benchmark;
+
+import com.example.shop.Item;
+import com.example.shop.ShoppingCart;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShoppingCartBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    int cartSize;
+
+    ShoppingCart cart;
+
+    @Setup
+    public void setUp() {
+        cart = new ShoppingCart();
+        for (int i = 0; i < cartSize; i++) {
+            cart.addItem(new Item(String.valueOf(i), 10.0 + i, 1));
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void addItem() {
+        addExistingItem();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void addItemAllCores() {
+        addExistingItem();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public double getTotalPrice() {
+        return cart.getTotalPrice();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public double getTotalPriceAllCores() {
+        return cart.getTotalPrice();
+    }
+
+    private void addExistingItem() {
+        int id = ThreadLocalRandom.current().nextInt(cartSize);
+        cart.addItem(new Item(String.valueOf(id), 10.0 + id, 1));
+    }
+}
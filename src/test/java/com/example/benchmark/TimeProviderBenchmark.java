@@ -0,0 +1,45 @@
+package com.example.benchmark;
+
+import com.example.CoarseClockTimeProvider;
+import com.example.TimeProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeProviderBenchmark {
+
+    final TimeProvider systemClock = LocalDateTime::now;
+    CoarseClockTimeProvider coarseClock;
+
+    @Setup
+    public void setUp() {
+        coarseClock = new CoarseClockTimeProvider();
+    }
+
+    @TearDown
+    public void tearDown() {
+        coarseClock.close();
+    }
+
+    @Benchmark
+    public LocalDateTime systemClock() {
+        return systemClock.getCurrentTime();
+    }
+
+    @Benchmark
+    public LocalDateTime coarseClock() {
+        return coarseClock.getCurrentTime();
+    }
+
+    @Benchmark
+    public long coarseClockEpochNanos() {
+        return coarseClock.currentEpochNanos();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Should report percentiles within the bucket precision across several orders of magnitude")
+    void percentilesArePrecise() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1_000_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(1_000_000);
+        assertThat(histogram.getMax()).isEqualTo(1_000_000_000L);
+        assertThat((double) histogram.getValueAtPercentile(50)).isCloseTo(500_000_000, within(500_000_000 * 0.04));
+        assertThat((double) histogram.getValueAtPercentile(99)).isCloseTo(990_000_000, within(990_000_000 * 0.04));
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(1_000_000_000L);
+        assertThat(histogram.getMean()).isCloseTo(500_000_500, within(1.0));
+    }
+
+    @Test
+    @DisplayName("Should place every value in a bucket whose upper bound is at least the value")
+    void bucketsCoverAllValues() {
+        long[] values = {0, 1, 31, 32, 33, 63, 64, 1_000, 1L << 40, Long.MAX_VALUE};
+        for (long value : values) {
+            int index = LatencyHistogram.indexOf(value);
+            assertThat(LatencyHistogram.highestValueIn(index)).isGreaterThanOrEqualTo(value);
+            if (index > 0) {
+                assertThat(LatencyHistogram.highestValueIn(index - 1)).isLessThan(value);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should merge values recorded from several threads")
+    void mergesValuesFromSeveralThreads() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            long value = (t + 1) * 1_000L;
+            threads[t] = Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(value);
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(80_000);
+        assertThat(histogram.getMax()).isEqualTo(8_000);
+        assertThat(histogram.getMean()).isCloseTo(4_500, within(0.001));
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(8_000);
+    }
+}
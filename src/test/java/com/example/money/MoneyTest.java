@@ -0,0 +1,85 @@
+package com.example.money;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTest {
+
+    private static final Currency EUR = Currency.getInstance("EUR");
+
+    @Test
+    @DisplayName("Should add amounts exactly where double arithmetic drifts")
+    void addsWithoutDrift() {
+        Money total = Money.zero(Money.SEK);
+        double doubleTotal = 0;
+        for (int i = 0; i < 1_000; i++) {
+            total = total.plus(Money.of(0.1, Money.SEK, RoundingMode.HALF_EVEN));
+            doubleTotal += 0.1;
+        }
+
+        assertThat(total.toBigDecimal()).isEqualByComparingTo("100.00");
+        assertThat(total.toDouble()).isEqualTo(100.0);
+        assertThat(doubleTotal).isNotEqualTo(100.0);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "1010, HALF_EVEN, 50",
+            "1030, HALF_EVEN, 52",
+            "1010, HALF_UP, 51",
+            "1010, HALF_DOWN, 50",
+            "1001, UP, 51",
+            "1009, DOWN, 50",
+            "-1001, FLOOR, -51",
+            "-1009, CEILING, -50"
+    })
+    @DisplayName("Should round percentages with the requested rounding mode")
+    void roundsPercentages(long minorUnits, RoundingMode rounding, long expected) {
+        Money amount = Money.ofMinor(minorUnits, Money.SEK);
+
+        assertThat(amount.percentage(5, rounding).minorUnits()).isEqualTo(expected);
+        assertThat(amount.percentage(5, rounding).minorUnits())
+                .isEqualTo(BigDecimal.valueOf(minorUnits * 5).divide(BigDecimal.valueOf(100), rounding).longValueExact());
+    }
+
+    @Test
+    @DisplayName("Should throw ArithmeticException on overflow or when rounding is needed but not allowed")
+    void rejectsOverflowAndUnnecessaryRounding() {
+        Money large = Money.ofMinor(Long.MAX_VALUE, Money.SEK);
+
+        assertThrows(ArithmeticException.class, () -> large.plus(Money.ofMinor(1, Money.SEK)));
+        assertThrows(ArithmeticException.class, () -> large.times(2));
+        assertThrows(ArithmeticException.class, () -> Money.of(0.125, Money.SEK, RoundingMode.UNNECESSARY));
+        assertThrows(ArithmeticException.class,
+                () -> Money.ofMinor(1, Money.SEK).percentage(50, RoundingMode.UNNECESSARY));
+    }
+
+    @Test
+    @DisplayName("Should throw IllegalArgumentException when combining different currencies")
+    void rejectsMixedCurrencies() {
+        Money kronor = Money.ofMinor(100, Money.SEK);
+        Money euros = Money.ofMinor(100, EUR);
+
+        var exception = assertThrows(IllegalArgumentException.class, () -> kronor.plus(euros));
+
+        assertThat(exception).hasMessage("Valutorna matchar inte: SEK och EUR");
+    }
+
+    @Test
+    @DisplayName("Should use the currency's own number of decimals")
+    void usesCurrencyFractionDigits() {
+        Money yen = Money.of(1234.5, Currency.getInstance("JPY"), RoundingMode.HALF_UP);
+
+        assertThat(yen.minorUnits()).isEqualTo(1235);
+        assertThat(Money.ofMinor(1250, Money.SEK)).hasToString("12.50 SEK");
+    }
+}
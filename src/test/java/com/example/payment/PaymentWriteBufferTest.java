@@ -0,0 +1,115 @@
+package com.example.payment;
+
+import com.example.metrics.InMemoryMetricsSink;
+import com.example.money.Money;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PaymentWriteBufferTest {
+
+    private static final class RecordingConnection implements DatabaseConnection {
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        final List<String> rows = new CopyOnWriteArrayList<>();
+        volatile RuntimeException batchFailure;
+        volatile RuntimeException rowFailure;
+
+        @Override
+        public void executeUpdate(String query) {
+            if (rowFailure != null) {
+                throw rowFailure;
+            }
+            rows.add(query);
+        }
+
+        @Override
+        public void executeBatch(String statement, List<Object[]> parameterSets) {
+            if (batchFailure != null) {
+                throw batchFailure;
+            }
+            batchSizes.add(parameterSets.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Should flush a partial batch when the maximum delay has passed")
+    void flushesOnTime() throws Exception {
+        RecordingConnection connection = new RecordingConnection();
+        try (PaymentWriteBuffer buffer = new PaymentWriteBuffer(connection, 100)) {
+            buffer.start(Duration.ofMillis(20));
+
+            CompletableFuture<Void> acknowledgement = buffer.add(Money.ofMinor(100, Money.SEK), "SUCCESS");
+            buffer.add(Money.ofMinor(200, Money.SEK), "SUCCESS");
+
+            await().atMost(Duration.ofSeconds(2)).until(acknowledgement::isDone);
+            assertThat(connection.batchSizes).containsExactly(2);
+            assertThat(buffer.getWrittenCount()).isEqualTo(2);
+            assertThat(buffer.getPendingCount()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("Should write the rows of a failed batch one at a time")
+    void failedBatchFallsBackToSingleRows() throws Exception {
+        RecordingConnection connection = new RecordingConnection();
+        connection.batchFailure = new IllegalStateException("Batchen avbröts");
+        InMemoryMetricsSink metrics = new InMemoryMetricsSink();
+        try (PaymentWriteBuffer buffer = new PaymentWriteBuffer(connection, 2)) {
+            buffer.setMetricsSink(metrics);
+            CompletableFuture<Void> first = buffer.add(Money.ofMinor(100, Money.SEK), "SUCCESS");
+            CompletableFuture<Void> second = buffer.add(Money.ofMinor(200, Money.SEK), "SUCCESS");
+
+            assertThat(first).isCompleted();
+            assertThat(second).isCompleted();
+            assertThat(connection.rows).containsExactly(
+                    "INSERT INTO payments (amount, status) VALUES (1.00, 'SUCCESS')",
+                    "INSERT INTO payments (amount, status) VALUES (2.00, 'SUCCESS')");
+            assertThat(buffer.getFailedBatchCount()).isEqualTo(1);
+            assertThat(buffer.getWrittenCount()).isEqualTo(2);
+            assertThat(metrics.getCount("payment.writeBuffer.batchFailure")).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Should fail the acknowledgement of a row that could not be written on its own either")
+    void failedRowFailsAcknowledgement() throws Exception {
+        RecordingConnection connection = new RecordingConnection();
+        connection.batchFailure = new IllegalStateException("Databasen svarar inte");
+        connection.rowFailure = new IllegalStateException("Databasen svarar inte");
+        try (PaymentWriteBuffer buffer = new PaymentWriteBuffer(connection, 2)) {
+            CompletableFuture<Void> first = buffer.add(Money.ofMinor(100, Money.SEK), "SUCCESS");
+            CompletableFuture<Void> second = buffer.add(Money.ofMinor(200, Money.SEK), "SUCCESS");
+
+            var exception = assertThrows(ExecutionException.class, first::get);
+            assertThat(exception).hasCauseInstanceOf(IllegalStateException.class);
+            assertThat(second).isCompletedExceptionally();
+            assertThat(buffer.getFailedBatchCount()).isEqualTo(1);
+            assertThat(buffer.getFailedRowCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    @DisplayName("Should write what is left when closed and reject writes afterwards")
+    void closeFlushesRemaining() throws Exception {
+        RecordingConnection connection = new RecordingConnection();
+        PaymentWriteBuffer buffer = new PaymentWriteBuffer(connection, 100);
+        CompletableFuture<Void> acknowledgement = buffer.add(Money.ofMinor(100, Money.SEK), "SUCCESS");
+
+        buffer.close();
+
+        assertThat(acknowledgement).isCompleted();
+        assertThat(connection.batchSizes).containsExactly(1);
+        var exception = assertThrows(IllegalStateException.class,
+                () -> buffer.add(Money.ofMinor(100, Money.SEK), "SUCCESS"));
+        assertThat(exception).hasMessage("Skrivbufferten är stängd");
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.shop;
+
+import com.example.money.Money;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConcurrentShoppingCartTest {
+
+    private static final int THREADS = 8;
+    private static final int ADDS_PER_THREAD = 5_000;
+    private static final int ITEMS = 20;
+
+    @Test
+    @DisplayName("Should not lose any quantity when many threads add the same items concurrently")
+    void concurrentAddsAreNotLost() throws Exception {
+        ConcurrentShoppingCart cart = new ConcurrentShoppingCart();
+        List<ConcurrentShoppingCart.Snapshot> snapshots = new ArrayList<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                    int id = ThreadLocalRandom.current().nextInt(ITEMS);
+                    cart.addItem(new Item(String.valueOf(id), Money.ofMinor(100 + id, Money.SEK), 1));
+                }
+                return null;
+            }));
+        }
+        Future<?> reader = executor.submit(() -> {
+            start.await();
+            while (writers.stream().anyMatch(writer -> !writer.isDone())) {
+                snapshots.add(cart.snapshot());
+            }
+            return null;
+        });
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(30, TimeUnit.SECONDS);
+        }
+        reader.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertThat(cart.getItems().stream().mapToInt(Item::getQuantity).sum()).isEqualTo(THREADS * ADDS_PER_THREAD);
+        assertThat(snapshots).allSatisfy(snapshot ->
+                assertThat(snapshot.subtotal().minorUnits()).isEqualTo(snapshot.items().stream()
+                        .mapToLong(item -> item.getUnitPrice().minorUnits() * item.getQuantity())
+                        .sum()));
+    }
+
+    @Test
+    @DisplayName("Should keep insertion order and a matching total through updates and removals")
+    void updatesAndRemovals() {
+        ConcurrentShoppingCart cart = new ConcurrentShoppingCart();
+        cart.addItem(new Item("3", 300.0, 1));
+        cart.addItem(new Item("1", 100.0, 2));
+        cart.addItem(new Item("2", 200.0, 1));
+        cart.setDiscount(new Discount(50));
+
+        cart.updateQuantity("1", 4);
+        cart.removeItem("2");
+        cart.addItem(new Item("2", 200.0, 1));
+        cart.updateQuantity("3", 0);
+
+        assertThat(cart.getItems()).extracting(Item::getId).containsExactly("1", "2");
+        assertThat(cart.snapshot().subtotal()).isEqualTo(Money.ofMinor(60_000, Money.SEK));
+        assertThat(cart.getTotalPrice()).isEqualTo(300.0);
+    }
+
+    @Test
+    @DisplayName("Should throw IllegalArgumentException when updating an item that is not in the cart")
+    void updateMissingItem() {
+        ConcurrentShoppingCart cart = new ConcurrentShoppingCart();
+
+        var exception = assertThrows(IllegalArgumentException.class, () -> cart.updateQuantity("1", 1));
+
+        assertThat(exception).hasMessage("Varan finns inte i kundvagnen");
+    }
+}
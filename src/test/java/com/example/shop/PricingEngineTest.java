@@ -0,0 +1,98 @@
+package com.example.shop;
+
+import com.example.money.Money;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PricingEngineTest {
+
+    private static Money kronor(long amount) {
+        return Money.ofMinor(amount * 100, Money.SEK);
+    }
+
+    @Test
+    @DisplayName("Should stack item, buy-X-get-Y, tiered and coupon discounts in rule order")
+    void appliesStackedRules() {
+        PricingEngine engine = PricingEngine.compile(
+                List.of(new ItemPercentageDiscount(Set.of("shirt"), 10, RoundingMode.HALF_EVEN),
+                        new BuyXGetYDiscount("socks", 2, 1)),
+                List.of(new TieredDiscount(List.of(new TieredDiscount.Tier(kronor(500), 5),
+                                new TieredDiscount.Tier(kronor(1000), 10)), RoundingMode.HALF_EVEN),
+                        new CouponDiscount("WELCOME", kronor(50))));
+        ShoppingCart cart = new ShoppingCart();
+        cart.setPricingEngine(engine);
+
+        cart.addItem(new Item("shirt", 200.0, 3));
+        cart.addItem(new Item("socks", 50.0, 7));
+        cart.addItem(new Item("hat", 300.0, 1));
+
+        // 540 + (350 - 100) + 300 = 1090, tio procent av det ger 981, kupongen drar av 50
+        assertThat(cart.getSubtotal()).isEqualTo(kronor(1250));
+        assertThat(cart.getTotal()).isEqualTo(kronor(931));
+    }
+
+    @Test
+    @DisplayName("Should give the same total incrementally as a full evaluation after every change")
+    void incrementalTotalMatchesFullEvaluation() {
+        PricingEngine engine = PricingEngine.compile(
+                List.of(new ItemPercentageDiscount(Set.of("1", "2", "3"), 15, RoundingMode.HALF_UP),
+                        new ItemPercentageDiscount(Set.of(), 5, RoundingMode.DOWN),
+                        new BuyXGetYDiscount("4", 3, 1)),
+                List.of(new TieredDiscount(List.of(new TieredDiscount.Tier(kronor(2000), 7)), RoundingMode.HALF_EVEN)));
+        ShoppingCart cart = new ShoppingCart();
+        cart.setPricingEngine(engine);
+        Random random = new Random(42);
+
+        for (int i = 0; i < 500; i++) {
+            String id = String.valueOf(random.nextInt(10));
+            switch (random.nextInt(3)) {
+                case 0 -> cart.addItem(new Item(id, Money.ofMinor(random.nextInt(1, 50_000), Money.SEK),
+                        random.nextInt(1, 5)));
+                case 1 -> cart.removeItem(id);
+                default -> {
+                    if (cart.getItems().stream().anyMatch(item -> item.getId().equals(id))) {
+                        cart.updateQuantity(id, random.nextInt(0, 10));
+                    }
+                }
+            }
+
+            assertThat(cart.getTotal()).isEqualTo(engine.price(cart.getItems(), Money.SEK));
+        }
+    }
+
+    @Test
+    @DisplayName("Should reuse the cached total until the cart version changes")
+    void cachesTotalByVersion() {
+        ShoppingCart cart = new ShoppingCart();
+        cart.setPricingEngine(PricingEngine.compile(List.of(),
+                List.of(new CouponDiscount("TEN", kronor(10)))));
+        cart.addItem(new Item("1", 100.0, 1));
+
+        Money first = cart.getTotal();
+        long version = cart.getVersion();
+
+        assertThat(cart.getTotal()).isSameAs(first);
+        cart.updateQuantity("1", 2);
+        assertThat(cart.getVersion()).isGreaterThan(version);
+        assertThat(cart.getTotal()).isEqualTo(kronor(190));
+    }
+
+    @Test
+    @DisplayName("Should never discount a line below zero when line rules stack")
+    void capsLineDiscountAtLineTotal() {
+        PricingEngine engine = PricingEngine.compile(
+                List.of(new ItemPercentageDiscount(Set.of("1"), 80, RoundingMode.HALF_EVEN),
+                        new ItemPercentageDiscount(Set.of(), 50, RoundingMode.HALF_EVEN)),
+                List.of());
+
+        assertThat(engine.lineDiscount("1", kronor(100), 2)).isEqualTo(kronor(200));
+        assertThat(engine.lineDiscount("2", kronor(100), 2)).isEqualTo(kronor(100));
+    }
+}
@@ -1,9 +1,14 @@
 package com.example.shop;
 
+import com.example.money.Money;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.math.RoundingMode;
+import java.util.Currency;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class ShoppingCartTest {
 
@@ -157,4 +162,72 @@ class ShoppingCartTest {
         assertThat(cart.getItems()).isEmpty();
     }
 
+    @Test
+    @DisplayName("Should keep the running total in step when quantities are changed or lines are removed")
+    void updateQuantityKeepsTotalInStep(){
+        ShoppingCart cart = new ShoppingCart();
+        cart.addItem(new Item("1", 100.0, 2));
+        cart.addItem(new Item("2", 200.0, 1));
+        cart.addItem(new Item("3", 300.0, 1));
+
+        cart.updateQuantity("1", 5);
+        cart.updateQuantity("3", 0);
+        cart.removeItem("2");
+
+        assertThat(cart.getItems()).extracting(Item::getId).containsExactly("1");
+        assertThat(cart.getTotalPrice()).isEqualTo(500.0);
+    }
+
+    @Test
+    @DisplayName("Should keep insertion order and not let returned items change the cart")
+    void getItemsReturnsCopiesInInsertionOrder(){
+        ShoppingCart cart = new ShoppingCart();
+        Item hat = new Item("3", 300.0, 1);
+        cart.addItem(hat);
+        cart.addItem(new Item("1", 100.0, 1));
+        cart.addItem(new Item("2", 200.0, 1));
+
+        hat.setQuantity(10);
+        cart.getItems().getFirst().setQuantity(10);
+
+        assertThat(cart.getItems()).extracting(Item::getId).containsExactly("3", "1", "2");
+        assertThat(cart.getItems().getFirst().getQuantity()).isEqualTo(1);
+        assertThat(cart.getTotalPrice()).isEqualTo(600.0);
+    }
+
+    @Test
+    @DisplayName("Should throw IllegalArgumentException when updating the quantity of an item that is not in the cart")
+    void updateQuantityOfMissingItem(){
+        ShoppingCart cart = new ShoppingCart();
+
+        var exception = assertThrows(IllegalArgumentException.class, () -> cart.updateQuantity("1", 2));
+
+        assertThat(exception).hasMessage("Varan finns inte i kundvagnen");
+    }
+
+    @Test
+    @DisplayName("Should keep an exact total in minor units regardless of how many lines the cart has")
+    void totalIsExactForManyLines(){
+        ShoppingCart cart = new ShoppingCart();
+        for (int i = 0; i < 1_000; i++) {
+            cart.addItem(new Item(String.valueOf(i), 0.1, 3));
+        }
+        cart.setDiscount(new Discount(15, RoundingMode.HALF_EVEN));
+
+        assertThat(cart.getSubtotal()).isEqualTo(Money.ofMinor(30_000, Money.SEK));
+        assertThat(cart.getTotal()).isEqualTo(Money.ofMinor(25_500, Money.SEK));
+        assertThat(cart.getTotalPrice()).isEqualTo(255.0);
+    }
+
+    @Test
+    @DisplayName("Should throw IllegalArgumentException when adding an item priced in another currency")
+    void rejectsItemInOtherCurrency(){
+        ShoppingCart cart = new ShoppingCart();
+        Item item = new Item("1", Money.ofMinor(100, Currency.getInstance("EUR")), 1);
+
+        var exception = assertThrows(IllegalArgumentException.class, () -> cart.addItem(item));
+
+        assertThat(exception).hasMessage("Varans valuta matchar inte kundvagnens: EUR");
+    }
+
 }